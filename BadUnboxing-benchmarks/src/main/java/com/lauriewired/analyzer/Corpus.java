@@ -0,0 +1,84 @@
+package com.lauriewired.analyzer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Decompiled packer stubs checked in under resources/corpus, in three sizes listed in <size>.list
+ *  small is a lone Application subclass, medium adds the helpers it calls,
+ *  and large adds a string pool class like the ones obfuscators generate
+ */
+public class Corpus {
+    public static final String PACKAGE_NAME = "com.stub.shell";
+    public static final String APK_PATH = "/tmp/stub.apk";
+
+    /*
+     * Unit lists parsed ahead of each benchmark invocation, which then runs its stage on all of them
+     * A stage takes microseconds on the small corpus, about what JMH's per-invocation setup and timestamps cost,
+     *  so each invocation has to do many operations for the setup to stop showing up in the score
+     */
+    public static final int BATCH_SIZE = 20;
+
+    private final List<String> classNames = new ArrayList<>();
+    private final List<String> sources = new ArrayList<>();
+
+    public static Corpus load(String size) {
+        Corpus corpus = new Corpus();
+        for (String fileName : readLines("/corpus/" + size + ".list")) {
+            corpus.classNames.add(fileName.substring(0, fileName.lastIndexOf('.')));
+            corpus.sources.add(String.join("\n", readLines("/corpus/" + fileName)) + "\n");
+        }
+        return corpus;
+    }
+
+    private static List<String> readLines(String resource) {
+        InputStream in = Corpus.class.getResourceAsStream(resource);
+        if (in == null) {
+            throw new IllegalArgumentException("Missing corpus resource " + resource);
+        }
+
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!resource.endsWith(".list") || !line.trim().isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return lines;
+    }
+
+    public List<String> getClassNames() {
+        return classNames;
+    }
+
+    public List<String> getSources() {
+        return sources;
+    }
+
+    // Every stage edits its units in place, so each invocation needs fresh ones
+    public List<List<CompilationUnit>> newUnitBatch() {
+        List<List<CompilationUnit>> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(newUnits());
+        }
+        return batch;
+    }
+
+    public List<CompilationUnit> newUnits() {
+        List<CompilationUnit> units = new ArrayList<>();
+        for (int i = 0; i < sources.size(); i++) {
+            units.add(CompilationUnit.parse(classNames.get(i), sources.get(i)));
+        }
+        return units;
+    }
+}
@@ -0,0 +1,97 @@
+package com.lauriewired.analyzer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * The whole-slice stages of UnpackerGenerator and the keyword scan of DynamicDexLoaderDetection
+ * Stages edit their units in place, so Corpus.BATCH_SIZE fresh copies are parsed outside the measurement
+ *  before every call and each call runs the stage on all of them. Scores are per copy
+ * parseUnits is the baseline for what parsing alone costs
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private Corpus corpus;
+
+    // Only the stages take this, so the baseline and the keyword scan don't pay for per-invocation setup
+    @State(Scope.Thread)
+    public static class UnitBatch {
+        private List<List<CompilationUnit>> units;
+
+        @Setup(Level.Invocation)
+        public void parse(PipelineBenchmark benchmark) {
+            units = benchmark.corpus.newUnitBatch();
+        }
+    }
+
+    @Setup
+    public void loadCorpus() {
+        corpus = Corpus.load(size);
+    }
+
+    @Benchmark
+    public List<CompilationUnit> parseUnits() {
+        return corpus.newUnits();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.BATCH_SIZE)
+    public List<List<CompilationUnit>> removeReflection(UnitBatch batch) {
+        for (List<CompilationUnit> units : batch.units) {
+            ReflectionRemover.removeReflection(units);
+        }
+        return batch.units;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.BATCH_SIZE)
+    public List<List<CompilationUnit>> finalProcessing(UnitBatch batch) {
+        for (List<CompilationUnit> units : batch.units) {
+            UnpackerGenerator.finalProcessing(units, Corpus.PACKAGE_NAME);
+        }
+        return batch.units;
+    }
+
+    // The per-class line cleanups, built once per slice like generateUnpackerJava does
+    @Benchmark
+    @OperationsPerInvocation(Corpus.BATCH_SIZE)
+    public List<List<CompilationUnit>> cleanupRewrite(UnitBatch batch) {
+        for (List<CompilationUnit> units : batch.units) {
+            LineRewriter rewriter = UnpackerGenerator.createCleanupRewriter("Unpacker_stub", Corpus.PACKAGE_NAME);
+            for (CompilationUnit unit : units) {
+                rewriter.rewrite(unit.getBody());
+            }
+        }
+        return batch.units;
+    }
+
+    @Benchmark
+    public void scanDexLoadingKeywords(Blackhole blackhole) {
+        for (String source : corpus.getSources()) {
+            blackhole.consume(DynamicDexLoaderDetection.findKeywords(source));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.lauriewired.analyzer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * The source side of IdentifierRenamer.renameArgsAndVars
+ * The rename pass itself runs inside jadx and needs a loaded APK, so this covers the renamer
+ *  used for classes the pass couldn't fully handle, plus the rename map every renamer goes through
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenamerBenchmark {
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private Corpus corpus;
+
+    @Setup
+    public void loadCorpus() {
+        corpus = Corpus.load(size);
+    }
+
+    @Benchmark
+    public void renameArgsAndVars(Blackhole blackhole) {
+        RenameMap renameMap = new RenameMap();
+        List<String> sources = corpus.getSources();
+        for (int i = 0; i < sources.size(); i++) {
+            StringBuilder code = new StringBuilder(sources.get(i));
+            LocalVariableRenamer.rename(code, Corpus.PACKAGE_NAME + "." + corpus.getClassNames().get(i), renameMap);
+            blackhole.consume(code);
+        }
+    }
+
+    @Benchmark
+    public void renameMapNames(Blackhole blackhole) {
+        RenameMap renameMap = new RenameMap();
+        for (int i = 0; i < corpus.getSources().size(); i++) {
+            for (int ordinal = 0; ordinal < 200; ordinal++) {
+                blackhole.consume(renameMap.nameFor(corpus.getClassNames().get(i) + "#" + ordinal, "str", "var_"));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.lauriewired.analyzer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lauriewired.analyzer.rules.ApplicationInfoRule;
+import com.lauriewired.analyzer.rules.ArrayMapRule;
+import com.lauriewired.analyzer.rules.BuildRule;
+import com.lauriewired.analyzer.rules.DexClassLoaderRule;
+
+/*
+ * Each rewrite rule on its own, run on every class whether it's triggered or not, so a slow rule stands out
+ * "registry" goes through RewriteRules like the pipeline does, and shows what trigger dispatch costs
+ *  for all of the rules together. Add new rules to the rule parameter
+ * Rules edit their units in place, so each call runs on Corpus.BATCH_SIZE copies parsed beforehand, scores are per copy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RewriteRuleBenchmark {
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    @Param({"DexClassLoaderRule", "BuildRule", "ApplicationInfoRule", "ArrayMapRule", "contextRules", "registry"})
+    public String rule;
+
+    private final AnalysisSession session = new AnalysisSession(Corpus.APK_PATH);
+    private Corpus corpus;
+    private RewriteRule rewriteRule;
+    private LineRewriter contextRules;
+    private List<List<CompilationUnit>> batch;
+
+    @Setup
+    public void loadCorpus() {
+        corpus = Corpus.load(size);
+        switch (rule) {
+            case "DexClassLoaderRule":
+                rewriteRule = new DexClassLoaderRule();
+                break;
+            case "BuildRule":
+                rewriteRule = new BuildRule();
+                break;
+            case "ApplicationInfoRule":
+                rewriteRule = new ApplicationInfoRule();
+                break;
+            case "ArrayMapRule":
+                rewriteRule = new ArrayMapRule();
+                break;
+            case "contextRules":
+                contextRules = new LineRewriter();
+                CodeReplacerUtils.addContextRules(contextRules, "Unpacker_stub", Corpus.PACKAGE_NAME);
+                break;
+            case "registry":
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown rule " + rule);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void parseBatch() {
+        batch = corpus.newUnitBatch();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.BATCH_SIZE)
+    public List<List<CompilationUnit>> apply() {
+        for (List<CompilationUnit> units : batch) {
+            for (CompilationUnit unit : units) {
+                if (rewriteRule != null) {
+                    rewriteRule.apply(unit, session);
+                } else if (contextRules != null) {
+                    contextRules.rewrite(unit.getBody());
+                } else {
+                    RewriteRules.getInstance().apply(unit, session);
+                }
+            }
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,89 @@
+package com.stub.shell;
+
+import java.security.MessageDigest;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/* loaded from: classes.dex */
+public final class Crypto {
+    private static final byte[] KEY = {83, 104, 51, 108, 108, 75, 51, 121, 33, 48, 48, 55, 120, 65, 122, 90};
+    private static final int[] SBOX = new int[256];
+    private static boolean sInitialized;
+
+    private Crypto() {
+    }
+
+    private static void initSbox(byte[] bArr) {
+        for (int i = 0; i < 256; i++) {
+            SBOX[i] = i;
+        }
+        int i2 = 0;
+        for (int i3 = 0; i3 < 256; i3++) {
+            i2 = ((i2 + SBOX[i3]) + (bArr[i3 % bArr.length] & 255)) % 256;
+            int i4 = SBOX[i3];
+            SBOX[i3] = SBOX[i2];
+            SBOX[i2] = i4;
+        }
+        sInitialized = true;
+    }
+
+    public static byte[] rc4(byte[] bArr, byte[] bArr2) {
+        initSbox(bArr2);
+        int[] iArr = (int[]) SBOX.clone();
+        byte[] bArr3 = new byte[bArr.length];
+        int i = 0;
+        int i2 = 0;
+        for (int i3 = 0; i3 < bArr.length; i3++) {
+            i = (i + 1) % 256;
+            i2 = (i2 + iArr[i]) % 256;
+            int i4 = iArr[i];
+            iArr[i] = iArr[i2];
+            iArr[i2] = i4;
+            bArr3[i3] = (byte) (bArr[i3] ^ iArr[(iArr[i] + iArr[i2]) % 256]);
+        }
+        return bArr3;
+    }
+
+    public static byte[] xor(byte[] bArr, int i) {
+        byte[] bArr2 = new byte[bArr.length];
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            bArr2[i2] = (byte) (bArr[i2] ^ ((i + i2) & 255));
+        }
+        return bArr2;
+    }
+
+    public static byte[] decrypt(byte[] bArr) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(KEY);
+            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(2, new SecretKeySpec(digest, "AES"), new IvParameterSpec(KEY));
+            return cipher.doFinal(rc4(bArr, KEY));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return xor(bArr, KEY.length);
+        }
+    }
+
+    public static String decryptString(String str) {
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        char[] cArr = new char[length];
+        for (int i = 0; i < length; i++) {
+            cArr[i] = (char) (charArray[i] ^ KEY[i % KEY.length]);
+        }
+        return new String(cArr);
+    }
+
+    public static String hex(byte[] bArr) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bArr) {
+            String hexString = Integer.toHexString(b & 255);
+            if (hexString.length() == 1) {
+                sb.append('0');
+            }
+            sb.append(hexString);
+        }
+        return sb.toString();
+    }
+}
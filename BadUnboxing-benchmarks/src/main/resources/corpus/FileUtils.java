@@ -0,0 +1,101 @@
+package com.stub.shell;
+
+import android.content.Context;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/* loaded from: classes.dex */
+public class FileUtils {
+    private static final int BUFFER_SIZE = 8192;
+
+    public static void copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+        byte[] bArr = new byte[BUFFER_SIZE];
+        while (true) {
+            int read = inputStream.read(bArr);
+            if (read == -1) {
+                outputStream.flush();
+                return;
+            }
+            outputStream.write(bArr, 0, read);
+        }
+    }
+
+    public static byte[] readFully(File file) throws IOException {
+        FileInputStream fileInputStream = new FileInputStream(file);
+        try {
+            byte[] bArr = new byte[(int) file.length()];
+            int i = 0;
+            while (i < bArr.length) {
+                int read = fileInputStream.read(bArr, i, bArr.length - i);
+                if (read < 0) {
+                    break;
+                }
+                i += read;
+            }
+            return bArr;
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    public static void touch(File file) throws IOException {
+        if (!file.exists()) {
+            file.getParentFile().mkdirs();
+            file.createNewFile();
+        }
+        file.setLastModified(System.currentTimeMillis());
+    }
+
+    public static boolean deleteRecursive(File file) {
+        if (file.isDirectory()) {
+            File[] listFiles = file.listFiles();
+            if (listFiles != null) {
+                for (File file2 : listFiles) {
+                    deleteRecursive(file2);
+                }
+            }
+        }
+        return file.delete();
+    }
+
+    public static void extractLibs(Context context, String str) throws IOException {
+        File dir = context.getDir("payload_lib", 0);
+        ZipFile zipFile = new ZipFile(context.getApplicationInfo().sourceDir);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry nextElement = entries.nextElement();
+                String name = nextElement.getName();
+                if (name.startsWith("lib/" + str + "/") && name.endsWith(".so")) {
+                    File file = new File(dir, name.substring(name.lastIndexOf(47) + 1));
+                    InputStream inputStream = zipFile.getInputStream(nextElement);
+                    FileOutputStream fileOutputStream = new FileOutputStream(file);
+                    try {
+                        copy(new BufferedInputStream(inputStream), fileOutputStream);
+                    } finally {
+                        fileOutputStream.close();
+                        inputStream.close();
+                    }
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    public static File payloadFile(Context context, String str) {
+        File file = new File(context.getFilesDir(), str);
+        if (!file.getParentFile().exists()) {
+            file.getParentFile().mkdirs();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,109 @@
+package com.stub.shell;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/* loaded from: classes.dex */
+public class RefInvoke {
+    public static Object invokeStaticMethod(String str, String str2, Class[] clsArr, Object[] objArr) {
+        try {
+            return Class.forName(str).getMethod(str2, clsArr).invoke(null, objArr);
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        } catch (IllegalAccessException e2) {
+            e2.printStackTrace();
+            return null;
+        } catch (IllegalArgumentException e3) {
+            e3.printStackTrace();
+            return null;
+        } catch (NoSuchMethodException e4) {
+            e4.printStackTrace();
+            return null;
+        } catch (SecurityException e5) {
+            e5.printStackTrace();
+            return null;
+        } catch (InvocationTargetException e6) {
+            e6.printStackTrace();
+            return null;
+        }
+    }
+
+    public static Object invokeMethod(String str, String str2, Object obj, Class[] clsArr, Object[] objArr) {
+        try {
+            Method declaredMethod = Class.forName(str).getDeclaredMethod(str2, clsArr);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(obj, objArr);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public static Object getFieldObject(String str, Object obj, String str2) {
+        try {
+            Field declaredField = Class.forName(str).getDeclaredField(str2);
+            declaredField.setAccessible(true);
+            return declaredField.get(obj);
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        } catch (IllegalAccessException e2) {
+            e2.printStackTrace();
+            return null;
+        } catch (NoSuchFieldException e3) {
+            e3.printStackTrace();
+            return null;
+        } catch (SecurityException e4) {
+            e4.printStackTrace();
+            return null;
+        }
+    }
+
+    public static Object getStaticFieldObject(String str, String str2) {
+        try {
+            Field declaredField = Class.forName(str).getDeclaredField(str2);
+            declaredField.setAccessible(true);
+            return declaredField.get(null);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public static void setFieldObject(String str, String str2, Object obj, Object obj2) {
+        try {
+            Field declaredField = Class.forName(str).getDeclaredField(str2);
+            declaredField.setAccessible(true);
+            declaredField.set(obj, obj2);
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+        } catch (IllegalAccessException e2) {
+            e2.printStackTrace();
+        } catch (NoSuchFieldException e3) {
+            e3.printStackTrace();
+        } catch (SecurityException e4) {
+            e4.printStackTrace();
+        }
+    }
+
+    public static void setStaticObject(String str, String str2, Object obj) {
+        try {
+            Field declaredField = Class.forName(str).getDeclaredField(str2);
+            declaredField.setAccessible(true);
+            declaredField.set(null, obj);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static Object newInstance(String str, Class[] clsArr, Object[] objArr) {
+        try {
+            return Class.forName(str).getConstructor(clsArr).newInstance(objArr);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
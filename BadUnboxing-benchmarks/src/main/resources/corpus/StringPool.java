@@ -0,0 +1,1882 @@
+package com.stub.shell;
+
+import android.content.Context;
+import android.os.Build;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+
+/* loaded from: classes.dex */
+public class StringPool {
+    private static final HashMap<Integer, String> CACHE = new HashMap<>();
+    private static final String S0 = "ujzde8gx/d6ncf10epf91d+h";
+    private static final String S1 = "o/d+/zdoc9is0j8h+t9lg/+m";
+    private static final String S2 = "xg9e+dn581u3/3xtplpf+t75";
+    private static final String S3 = "v2s=eh60kvj50ce9+uvw=5/3";
+    private static final String S4 = "efr4edt+2sywb3wkh5dnsipz";
+    private static final String S5 = "z5fk2z9ri19r0wyojfljooa5";
+    private static final String S6 = "/lqsaj08x+ui6d39zzzzg4zd";
+    private static final String S7 = "men2khv=dga+j8gxbenyjqw=";
+    private static final String S8 = "x4hh5344tfjgvq4k7bn7xj8b";
+    private static final String S9 = "7tfq7xkwo886vompzom75wbb";
+    private static final String S10 = "r4qm=w2wxfogo4mvn4a4wfhy";
+    private static final String S11 = "m4l1vfz3zfkkibj/3j=4wj99";
+    private static final String S12 = "ibag7i1mnbqns6p/uq80idw3";
+    private static final String S13 = "/706i8j76b2l=ajlj4h9du77";
+    private static final String S14 = "94g9dpmrcg629be2u6=6mr26";
+    private static final String S15 = "846p7q9m2i0hz2uep1enthjx";
+    private static final String S16 = "jqi3ogz5kok16zv0mwufxbv9";
+    private static final String S17 = "32byv7s6ehogfqrclri1qzj8";
+    private static final String S18 = "6+5ufrdl1erbfqf=oeqh3av9";
+    private static final String S19 = "0ric7phkqdlmtt7ns26lrwbq";
+    private static final String S20 = "cab69m64p2g158z6tnovmizw";
+    private static final String S21 = "diaeq1kdfy6s=psc3lkr2aqx";
+    private static final String S22 = "v9upctnwlavyf4r6mp6afqfj";
+    private static final String S23 = "z/czbttof/7j=yu5jsjc616i";
+    private static final String S24 = "76+b/ofbcixgy29db8p5qa3e";
+    private static final String S25 = "68f7e4qeqpno35ye4scme=jv";
+    private static final String S26 = "qt+ia4d5rgn5s7s333h9mtf4";
+    private static final String S27 = "bs3e62rynne/fj7qxi=6rhxo";
+    private static final String S28 = "55zbka52ztj0wyuhvauvzhma";
+    private static final String S29 = "sqxezy/ex1rdrgdsjpr16umx";
+    private static final String S30 = "1bz99nfd02is5d9ik40vstqq";
+    private static final String S31 = "zpt49zhkken659o2v21i9mpf";
+    private static final String S32 = "lv9fupxq+mb0y07nyrvd5r+x";
+    private static final String S33 = "i67nfrpyz21tbic14/5aez73";
+    private static final String S34 = "2pgojj7g3f9caio+ctiq71hg";
+    private static final String S35 = "et7/myqo=aa8t3rup47p9pb0";
+    private static final String S36 = "tdbm50fqo1xo5cv0xzmas6en";
+    private static final String S37 = "5mtmo3oqsg5lo50d=jzdnb=j";
+    private static final String S38 = "0ddlz2uhfkvml73ctyxv2kga";
+    private static final String S39 = "frfw0h9nywt1fd4mx82mux4b";
+    private static int sCounter;
+
+    public static String aun0(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 32));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int abm1(int i, int i2) {
+        int i3 = (i * 5) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object acz2(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S3));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean aig3(String str) {
+        if (Build.VERSION.SDK_INT < 30) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 96;
+        }
+        return (hashCode ^ i) % 97 == 0;
+    }
+
+    public static byte[] atk4(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 47;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String akt5(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 6));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int axw6(int i, int i2) {
+        int i3 = (i * 89) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object aij7(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S38));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean azu8(String str) {
+        if (Build.VERSION.SDK_INT < 23) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 9;
+        }
+        return (hashCode ^ i) % 10 == 0;
+    }
+
+    public static byte[] ahd9(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 61;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aym10(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 102));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int anp11(int i, int i2) {
+        int i3 = (i * 17) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object afa12(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S19));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean awy13(String str) {
+        if (Build.VERSION.SDK_INT < 14) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 20;
+        }
+        return (hashCode ^ i) % 21 == 0;
+    }
+
+    public static byte[] ahk14(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 111;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aol15(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 101));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int acq16(int i, int i2) {
+        int i3 = (i * 26) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object ayf17(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S26));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean acu18(String str) {
+        if (Build.VERSION.SDK_INT < 19) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 5;
+        }
+        return (hashCode ^ i) % 6 == 0;
+    }
+
+    public static byte[] arr19(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 42;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String and20(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 10));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int atc21(int i, int i2) {
+        int i3 = (i * 27) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object anp22(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S28));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean afh23(String str) {
+        if (Build.VERSION.SDK_INT < 32) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 18;
+        }
+        return (hashCode ^ i) % 19 == 0;
+    }
+
+    public static byte[] aot24(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 115;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String axr25(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 109));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int ayj26(int i, int i2) {
+        int i3 = (i * 38) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object asi27(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S16));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean axi28(String str) {
+        if (Build.VERSION.SDK_INT < 20) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 26;
+        }
+        return (hashCode ^ i) % 27 == 0;
+    }
+
+    public static byte[] ahf29(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 32;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aej30(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 114));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int agk31(int i, int i2) {
+        int i3 = (i * 9) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object aih32(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S33));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean ahu33(String str) {
+        if (Build.VERSION.SDK_INT < 18) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 104;
+        }
+        return (hashCode ^ i) % 105 == 0;
+    }
+
+    public static byte[] auo34(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 5;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aap35(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 114));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int aol36(int i, int i2) {
+        int i3 = (i * 6) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object ahd37(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S12));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean ats38(String str) {
+        if (Build.VERSION.SDK_INT < 19) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 25;
+        }
+        return (hashCode ^ i) % 26 == 0;
+    }
+
+    public static byte[] alq39(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 111;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aot40(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 34));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int adu41(int i, int i2) {
+        int i3 = (i * 77) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object alg42(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S23));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean ake43(String str) {
+        if (Build.VERSION.SDK_INT < 20) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 6;
+        }
+        return (hashCode ^ i) % 7 == 0;
+    }
+
+    public static byte[] aib44(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 77;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aak45(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 53));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int aft46(int i, int i2) {
+        int i3 = (i * 40) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object agb47(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S31));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean arp48(String str) {
+        if (Build.VERSION.SDK_INT < 23) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 9;
+        }
+        return (hashCode ^ i) % 10 == 0;
+    }
+
+    public static byte[] adz49(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 51;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aeu50(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 69));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int auf51(int i, int i2) {
+        int i3 = (i * 51) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object anj52(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S19));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean anb53(String str) {
+        if (Build.VERSION.SDK_INT < 14) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 40;
+        }
+        return (hashCode ^ i) % 41 == 0;
+    }
+
+    public static byte[] aln54(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 54;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String ayz55(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 47));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int amx56(int i, int i2) {
+        int i3 = (i * 52) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object aan57(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S10));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean and58(String str) {
+        if (Build.VERSION.SDK_INT < 20) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 106;
+        }
+        return (hashCode ^ i) % 107 == 0;
+    }
+
+    public static byte[] ams59(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 114;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aoy60(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 21));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int aab61(int i, int i2) {
+        int i3 = (i * 71) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object auz62(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S25));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean acs63(String str) {
+        if (Build.VERSION.SDK_INT < 14) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 80;
+        }
+        return (hashCode ^ i) % 81 == 0;
+    }
+
+    public static byte[] axq64(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 22;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String alj65(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 21));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int afc66(int i, int i2) {
+        int i3 = (i * 14) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object apy67(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S12));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean aje68(String str) {
+        if (Build.VERSION.SDK_INT < 22) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 108;
+        }
+        return (hashCode ^ i) % 109 == 0;
+    }
+
+    public static byte[] apk69(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 7;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aum70(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 12));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int awf71(int i, int i2) {
+        int i3 = (i * 82) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object atm72(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S12));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean apf73(String str) {
+        if (Build.VERSION.SDK_INT < 27) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 73;
+        }
+        return (hashCode ^ i) % 74 == 0;
+    }
+
+    public static byte[] abm74(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 67;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aml75(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 16));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int ahx76(int i, int i2) {
+        int i3 = (i * 105) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object abr77(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S2));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean avk78(String str) {
+        if (Build.VERSION.SDK_INT < 30) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 16;
+        }
+        return (hashCode ^ i) % 17 == 0;
+    }
+
+    public static byte[] ato79(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 71;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aun80(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 40));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int ahn81(int i, int i2) {
+        int i3 = (i * 50) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object aoq82(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S11));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean aaa83(String str) {
+        if (Build.VERSION.SDK_INT < 14) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 80;
+        }
+        return (hashCode ^ i) % 81 == 0;
+    }
+
+    public static byte[] aoh84(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 58;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String ayo85(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 108));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int azp86(int i, int i2) {
+        int i3 = (i * 52) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object ace87(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S27));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean alc88(String str) {
+        if (Build.VERSION.SDK_INT < 17) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 103;
+        }
+        return (hashCode ^ i) % 104 == 0;
+    }
+
+    public static byte[] aqq89(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 85;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String abu90(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 17));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int axk91(int i, int i2) {
+        int i3 = (i * 100) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object acb92(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S32));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean amu93(String str) {
+        if (Build.VERSION.SDK_INT < 15) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 101;
+        }
+        return (hashCode ^ i) % 102 == 0;
+    }
+
+    public static byte[] aac94(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 79;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String age95(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 114));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int ajz96(int i, int i2) {
+        int i3 = (i * 118) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object avz97(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S14));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean acl98(String str) {
+        if (Build.VERSION.SDK_INT < 33) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 79;
+        }
+        return (hashCode ^ i) % 80 == 0;
+    }
+
+    public static byte[] afk99(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 115;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aio100(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 19));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int aqp101(int i, int i2) {
+        int i3 = (i * 27) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object ait102(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S15));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean akl103(String str) {
+        if (Build.VERSION.SDK_INT < 19) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 5;
+        }
+        return (hashCode ^ i) % 6 == 0;
+    }
+
+    public static byte[] afm104(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 21;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String avk105(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 115));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int afz106(int i, int i2) {
+        int i3 = (i * 101) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object ady107(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S3));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean aul108(String str) {
+        if (Build.VERSION.SDK_INT < 26) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 112;
+        }
+        return (hashCode ^ i) % 113 == 0;
+    }
+
+    public static byte[] arq109(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 75;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String air110(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 81));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int axz111(int i, int i2) {
+        int i3 = (i * 48) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object aml112(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S9));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean alk113(String str) {
+        if (Build.VERSION.SDK_INT < 32) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 98;
+        }
+        return (hashCode ^ i) % 99 == 0;
+    }
+
+    public static byte[] aoh114(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 23;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String axb115(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 38));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int aij116(int i, int i2) {
+        int i3 = (i * 82) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object avk117(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S0));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean axb118(String str) {
+        if (Build.VERSION.SDK_INT < 23) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 29;
+        }
+        return (hashCode ^ i) % 30 == 0;
+    }
+
+    public static byte[] ajt119(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 81;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String anq120(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 47));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int aep121(int i, int i2) {
+        int i3 = (i * 30) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object aub122(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S3));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean aas123(String str) {
+        if (Build.VERSION.SDK_INT < 20) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 46;
+        }
+        return (hashCode ^ i) % 47 == 0;
+    }
+
+    public static byte[] adq124(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 46;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String ahn125(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 75));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int ase126(int i, int i2) {
+        int i3 = (i * 27) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object atp127(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S8));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean aaz128(String str) {
+        if (Build.VERSION.SDK_INT < 26) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 32;
+        }
+        return (hashCode ^ i) % 33 == 0;
+    }
+
+    public static byte[] aod129(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 9;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String avz130(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 35));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int azi131(int i, int i2) {
+        int i3 = (i * 2) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object aur132(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S22));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean atu133(String str) {
+        if (Build.VERSION.SDK_INT < 29) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 75;
+        }
+        return (hashCode ^ i) % 76 == 0;
+    }
+
+    public static byte[] atq134(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 94;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String ahf135(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 116));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int abb136(int i, int i2) {
+        int i3 = (i * 69) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object amf137(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S10));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean aby138(String str) {
+        if (Build.VERSION.SDK_INT < 28) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 14;
+        }
+        return (hashCode ^ i) % 15 == 0;
+    }
+
+    public static byte[] atr139(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 85;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aen140(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 26));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int atu141(int i, int i2) {
+        int i3 = (i * 65) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object atf142(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S19));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean acj143(String str) {
+        if (Build.VERSION.SDK_INT < 15) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 81;
+        }
+        return (hashCode ^ i) % 82 == 0;
+    }
+
+    public static byte[] axz144(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 62;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+
+    public static String aam145(String str, int i) {
+        String str2 = CACHE.get(Integer.valueOf(i));
+        if (str2 != null) {
+            return str2;
+        }
+        char[] charArray = str.toCharArray();
+        int length = charArray.length;
+        for (int i2 = 0; i2 < length; i2++) {
+            charArray[i2] = (char) (charArray[i2] ^ ((i + i2) * 109));
+        }
+        String str3 = new String(charArray);
+        CACHE.put(Integer.valueOf(i), str3);
+        return str3;
+    }
+
+    private static int axo146(int i, int i2) {
+        int i3 = (i * 11) ^ i2;
+        int i4 = i3 >>> 3;
+        if ((i4 & 1) == 0) {
+            sCounter += i4;
+            return i3 + i4;
+        }
+        int i5 = i4 - (i2 << 2);
+        return i5 < 0 ? -i5 : i5;
+    }
+
+    public static Object afh147(Context context, String str) {
+        try {
+            Class<?> cls = Class.forName(Crypto.decryptString(S16));
+            Method declaredMethod = cls.getDeclaredMethod(str, Context.class);
+            declaredMethod.setAccessible(true);
+            return declaredMethod.invoke(null, context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static boolean ahu148(String str) {
+        if (Build.VERSION.SDK_INT < 19) {
+            return false;
+        }
+        int hashCode = str.hashCode();
+        int i = 0;
+        for (int i2 = 0; i2 < str.length(); i2++) {
+            i = (i * 31) + str.charAt(i2) + 5;
+        }
+        return (hashCode ^ i) % 6 == 0;
+    }
+
+    public static byte[] akx149(byte[] bArr) {
+        byte[] bArr2 = new byte[bArr.length];
+        int i = 119;
+        for (int i2 = 0; i2 < bArr.length; i2++) {
+            int i3 = (bArr[i2] & 255) ^ i;
+            bArr2[i2] = (byte) i3;
+            i = ((i * 17) + i3) & 255;
+        }
+        return bArr2;
+    }
+}
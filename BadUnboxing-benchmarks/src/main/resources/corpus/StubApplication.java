@@ -0,0 +1,152 @@
+package com.stub.shell;
+
+import android.app.Application;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Build;
+import android.util.ArrayMap;
+import dalvik.system.DexClassLoader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/* loaded from: classes.dex */
+public class StubApplication extends Application {
+    private static final String PAYLOAD_NAME = "classes.jar";
+    private static final String REAL_APPLICATION = "com.example.victim.MainApplication";
+    private static String sDexPath;
+    private static String sOdexPath;
+    private static String sLibPath;
+    private Application mRealApplication;
+    private DexClassLoader mLoader;
+    private int mRetries;
+
+    @Override // android.content.ContextWrapper
+    protected void attachBaseContext(Context context) {
+        super.attachBaseContext(context);
+        try {
+            File dir = context.getDir("payload_odex", 0);
+            File dir2 = context.getDir("payload_lib", 0);
+            sOdexPath = dir.getAbsolutePath();
+            sLibPath = dir2.getAbsolutePath();
+            sDexPath = dir.getAbsolutePath() + "/" + PAYLOAD_NAME;
+            File file = new File(sDexPath);
+            if (!file.exists() || file.length() == 0) {
+                file.createNewFile();
+                byte[] readDexFileFromApk = readDexFileFromApk(context);
+                if (readDexFileFromApk == null) {
+                    return;
+                }
+                splitPayload(readDexFileFromApk, file);
+            }
+            Object currentActivityThread = RefInvoke.invokeStaticMethod("android.app.ActivityThread", "currentActivityThread", new Class[0], new Object[0]);
+            String packageName = getPackageName();
+            ArrayMap arrayMap = (ArrayMap) RefInvoke.getFieldObject("android.app.ActivityThread", currentActivityThread, "mPackages");
+            WeakReference weakReference = (WeakReference) arrayMap.get(packageName);
+            this.mLoader = new DexClassLoader(sDexPath, sOdexPath, sLibPath, (ClassLoader) RefInvoke.getFieldObject("android.app.LoadedApk", weakReference.get(), "mClassLoader"));
+            RefInvoke.setFieldObject("android.app.LoadedApk", "mClassLoader", weakReference.get(), this.mLoader);
+            if (Build.VERSION.SDK_INT >= 26) {
+                Log.i("shell", "patched loader for api " + Build.VERSION.SDK_INT);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override // android.app.Application
+    public void onCreate() {
+        String str = REAL_APPLICATION;
+        try {
+            Object currentActivityThread = RefInvoke.invokeStaticMethod("android.app.ActivityThread", "currentActivityThread", new Class[0], new Object[0]);
+            Object fieldObject = RefInvoke.getFieldObject("android.app.ActivityThread", currentActivityThread, "mBoundApplication");
+            Object fieldObject2 = RefInvoke.getFieldObject("android.app.ActivityThread$AppBindData", fieldObject, "info");
+            RefInvoke.setFieldObject("android.app.LoadedApk", "mApplication", fieldObject2, null);
+            Object fieldObject3 = RefInvoke.getFieldObject("android.app.ActivityThread", currentActivityThread, "mInitialApplication");
+            ArrayList arrayList = (ArrayList) RefInvoke.getFieldObject("android.app.ActivityThread", currentActivityThread, "mAllApplications");
+            arrayList.remove(fieldObject3);
+            ((ApplicationInfo) RefInvoke.getFieldObject("android.app.LoadedApk", fieldObject2, "mApplicationInfo")).className = str;
+            ((ApplicationInfo) RefInvoke.getFieldObject("android.app.ActivityThread$AppBindData", fieldObject, "appInfo")).className = str;
+            Application application = (Application) RefInvoke.invokeMethod("android.app.LoadedApk", "makeApplication", fieldObject2, new Class[]{Boolean.TYPE, Instrumentation.class}, new Object[]{false, null});
+            RefInvoke.setFieldObject("android.app.ActivityThread", "mInitialApplication", currentActivityThread, application);
+            Iterator it = ((ArrayMap) RefInvoke.getFieldObject("android.app.ActivityThread", currentActivityThread, "mProviderMap")).values().iterator();
+            while (it.hasNext()) {
+                Object fieldObject4 = RefInvoke.getFieldObject("android.app.ActivityThread$ProviderClientRecord", it.next(), "mLocalProvider");
+                RefInvoke.setFieldObject("android.content.ContentProvider", "mContext", fieldObject4, application);
+            }
+            this.mRealApplication = application;
+            application.onCreate();
+        } catch (Exception e) {
+            this.mRetries++;
+            e.printStackTrace();
+        }
+    }
+
+    private void splitPayload(byte[] bArr, File file) throws IOException {
+        int length = bArr.length;
+        byte[] bArr2 = new byte[4];
+        System.arraycopy(bArr, length - 4, bArr2, 0, 4);
+        int readInt = new DataInputStream(new ByteArrayInputStream(bArr2)).readInt();
+        byte[] bArr3 = new byte[readInt];
+        System.arraycopy(bArr, (length - 4) - readInt, bArr3, 0, readInt);
+        byte[] decrypt = Crypto.decrypt(bArr3);
+        FileOutputStream fileOutputStream = new FileOutputStream(file);
+        try {
+            fileOutputStream.write(decrypt);
+            fileOutputStream.flush();
+        } finally {
+            fileOutputStream.close();
+        }
+        File fileStreamPath = getFileStreamPath("payload.stamp");
+        FileUtils.touch(fileStreamPath);
+    }
+
+    private byte[] readDexFileFromApk(Context context) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        ZipInputStream zipInputStream = new ZipInputStream(new BufferedInputStream(new FileInputStream(context.getApplicationInfo().sourceDir)));
+        while (true) {
+            ZipEntry nextEntry = zipInputStream.getNextEntry();
+            if (nextEntry == null) {
+                zipInputStream.close();
+                return byteArrayOutputStream.toByteArray();
+            }
+            if (nextEntry.getName().equals("classes.dex")) {
+                byte[] bArr = new byte[1024];
+                while (true) {
+                    int read = zipInputStream.read(bArr);
+                    if (read == -1) {
+                        break;
+                    }
+                    byteArrayOutputStream.write(bArr, 0, read);
+                }
+            }
+            zipInputStream.closeEntry();
+        }
+    }
+
+    private List<String> listPayloadFiles() {
+        ArrayList arrayList = new ArrayList();
+        File[] listFiles = new File(sOdexPath).listFiles();
+        if (listFiles != null) {
+            for (File file : listFiles) {
+                if (file.getName().endsWith(".jar") || file.getName().endsWith(".dex")) {
+                    arrayList.add(file.getAbsolutePath());
+                }
+            }
+        }
+        return arrayList;
+    }
+
+    public Object loadPayloadClass(String str) throws Exception {
+        Class<?> loadClass = this.mLoader.loadClass(str);
+        Method method = loadClass.getMethod("init", Context.class);
+        method.setAccessible(true);
+        return method.invoke(loadClass.newInstance(), this);
+    }
+}
@@ -28,12 +28,18 @@ import org.slf4j.LoggerFactory;
 import com.github.weisj.darklaf.LafManager;
 import com.github.weisj.darklaf.theme.DarculaTheme;
 
+import com.lauriewired.batch.BatchTriage;
 import com.lauriewired.ui.AnalysisWindow;
 
 public class BadUnboxing {
     private static final Logger logger = LoggerFactory.getLogger(BadUnboxing.class);
 
     public static void main(String[] args) {
+        // Any arguments mean headless batch triage instead of the UI
+        if (args.length > 0) {
+            System.exit(BatchTriage.run(args));
+        }
+
         // Set the Darklaf Look and Feel
         try {
             LafManager.install(new DarculaTheme());
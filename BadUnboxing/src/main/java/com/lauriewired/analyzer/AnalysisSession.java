@@ -0,0 +1,40 @@
+package com.lauriewired.analyzer;
+
+import java.io.File;
+
+/*
+ * Everything one APK's analysis keeps between pipeline stages
+ * Nothing is shared between sessions, so any number of APKs can be analyzed in the same JVM at once
+ */
+public class AnalysisSession {
+    private final String apkFilePath;
+    private final RenameMap renameMap = new RenameMap();
+    private final UnpackerRenamePass renamePass = new UnpackerRenamePass(renameMap);
+    private volatile File baseDir;
+
+    public AnalysisSession(String apkFilePath) {
+        this.apkFilePath = apkFilePath;
+    }
+
+    public String getApkFilePath() {
+        return apkFilePath;
+    }
+
+    // Names handed out by the renamers, shared by every class of this APK
+    public RenameMap getRenameMap() {
+        return renameMap;
+    }
+
+    // Has to be passed to JadxUtils.loadJadx for any decompiler used to generate this session's unpacker
+    public UnpackerRenamePass getRenamePass() {
+        return renamePass;
+    }
+
+    public File getBaseDir() {
+        return baseDir;
+    }
+
+    void setBaseDir(File baseDir) {
+        this.baseDir = baseDir;
+    }
+}
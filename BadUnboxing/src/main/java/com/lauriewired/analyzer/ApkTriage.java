@@ -0,0 +1,227 @@
+package com.lauriewired.analyzer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jadx.api.JadxDecompiler;
+import jadx.api.JavaClass;
+
+/*
+ * Full analysis pipeline for a single APK with no UI dependencies
+ * Shared by the analysis window and the headless batch runner
+ */
+public class ApkTriage {
+    private static final Logger logger = LoggerFactory.getLogger(ApkTriage.class);
+
+    public static TriageResult triage(String apkFilePath) {
+        return triage(apkFilePath, DynamicDexLoaderDetection.DetectionMode.BYTECODE);
+    }
+
+    public static TriageResult triage(String apkFilePath, DynamicDexLoaderDetection.DetectionMode detectionMode) {
+        TriageResult result = new TriageResult(apkFilePath);
+        AnalysisSession session = new AnalysisSession(apkFilePath);
+        long startTime = System.currentTimeMillis();
+
+        try {
+            // Most APKs aren't packed, and the zip contents alone are enough to tell
+            Set<String> manifestClasses = null;
+            List<String> packedClasses = null;
+            try (ZipFile apkZip = new ZipFile(apkFilePath)) {
+                manifestClasses = ApkZipReader.getManifestClasses(apkZip);
+                packedClasses = findPackedClasses(manifestClasses, ApkZipReader.getDexClasses(apkZip));
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Zip level pre-triage failed, falling back to jadx: {}", e.toString());
+            }
+
+            if (packedClasses != null && packedClasses.isEmpty()) {
+                applyDetection(result, packedClasses, new ArrayList<>());
+            } else {
+                String cacheKey = null;
+                DecompilationCache.CachedApk cachedApk = null;
+                if (DecompilationCache.isEnabled()) {
+                    cacheKey = DecompilationCache.computeKey(apkFilePath, getAnalysisOptions(detectionMode));
+                    cachedApk = DecompilationCache.load(cacheKey);
+                }
+
+                if (cachedApk != null) {
+                    triageFromCache(session, result, cachedApk, packedClasses);
+                } else {
+                    triageWithJadx(session, result, detectionMode, cacheKey, manifestClasses, packedClasses);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error analyzing APK " + apkFilePath, e);
+            result.setVerdict(TriageResult.Verdict.ERROR);
+            result.setError(e.toString());
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    /*
+     * Triage for a payload dropped by an unpacker (dex, jar or apk), see LayerUnpacker
+     * Payloads rarely have a manifest, so the classes earlier layers still miss stand in for it: a payload
+     *  that defines all of them is the last layer, otherwise it needs a Java loader of its own to go deeper
+     * Not cached, layers are deduplicated by content within a run instead
+     */
+    public static TriageResult triageLayer(String payloadPath, Collection<String> missingClasses, DynamicDexLoaderDetection.DetectionMode detectionMode) {
+        TriageResult result = new TriageResult(payloadPath);
+        AnalysisSession session = new AnalysisSession(payloadPath);
+        long startTime = System.currentTimeMillis();
+
+        logger.info("Loading payload {}", payloadPath);
+        try (JadxDecompiler jadx = JadxUtils.loadJadx(payloadPath, session.getRenamePass())) {
+            List<String> packedClasses = findPackedClasses(missingClasses, JadxUtils.getDexClasses(payloadPath, jadx));
+
+            List<JavaClass> failedClasses = new ArrayList<>();
+            List<String> dexLoadingDetails = new ArrayList<>();
+            if (!packedClasses.isEmpty()) {
+                dexLoadingDetails = DynamicDexLoaderDetection.getJavaDexLoadingDetails(jadx, detectionMode, null, failedClasses);
+            }
+
+            boolean javaLoader = applyDetection(result, packedClasses, dexLoadingDetails);
+            reportFailedClasses(result, failedClasses);
+            if (javaLoader) {
+                generateUnpacker(session, result, jadx);
+            }
+        } catch (Exception e) {
+            logger.error("Error analyzing payload " + payloadPath, e);
+            result.setVerdict(TriageResult.Verdict.ERROR);
+            result.setError(e.toString());
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    private static String getAnalysisOptions(DynamicDexLoaderDetection.DetectionMode detectionMode) {
+        return JadxUtils.getOptionsFingerprint()
+            + ";detection=" + detectionMode
+            + ";keywords=" + DynamicDexLoaderDetection.getKeywordsFingerprint();
+    }
+
+    /*
+     * Packed classes are null when pre-triage couldn't read the zip
+     * Load and extraction failures are thrown rather than triaged, the cache would keep a wrong verdict for good
+     */
+    private static void triageWithJadx(AnalysisSession session, TriageResult result, DynamicDexLoaderDetection.DetectionMode detectionMode,
+                                       String cacheKey, Set<String> manifestClasses, List<String> packedClasses) throws Exception {
+        String apkFilePath = result.getApkFilePath();
+
+        logger.info("Loading APK {}", apkFilePath);
+        try (JadxDecompiler jadx = JadxUtils.loadJadx(apkFilePath, session.getRenamePass())) {
+            if (packedClasses == null) {
+                // Extract and parse AndroidManifest.xml
+                manifestClasses = JadxUtils.getManifestClasses(apkFilePath, jadx);
+
+                // Get classes from dex files
+                Set<String> dexClasses = JadxUtils.getDexClasses(apkFilePath, jadx);
+                packedClasses = findPackedClasses(manifestClasses, dexClasses);
+            }
+
+            Map<JavaClass, String> decompiledCode = new ConcurrentHashMap<>();
+            List<JavaClass> failedClasses = new ArrayList<>();
+            List<String> dexLoadingDetails = new ArrayList<>();
+            if (!packedClasses.isEmpty()) {
+                dexLoadingDetails = DynamicDexLoaderDetection.getJavaDexLoadingDetails(jadx, detectionMode, decompiledCode, failedClasses);
+            }
+
+            // Store before generating since renaming changes the decompiled code
+            // Only a clean load, extraction and scan is stored, a class that failed would be cached as having no code
+            //  and every later run would give the same verdict without it
+            if (cacheKey != null && failedClasses.isEmpty()) {
+                DecompilationCache.store(cacheKey, manifestClasses, jadx.getClasses(), decompiledCode);
+            } else if (cacheKey != null) {
+                logger.warn("Not caching {}, {} classes could not be decompiled", apkFilePath, failedClasses.size());
+            }
+
+            boolean javaLoader = applyDetection(result, packedClasses, dexLoadingDetails);
+            reportFailedClasses(result, failedClasses);
+            if (javaLoader) {
+                generateUnpacker(session, result, jadx);
+            }
+        }
+    }
+
+    private static void triageFromCache(AnalysisSession session, TriageResult result, DecompilationCache.CachedApk cachedApk, List<String> packedClasses) {
+        logger.info("Using cached decompilation for {}", result.getApkFilePath());
+
+        if (packedClasses == null) {
+            packedClasses = findPackedClasses(cachedApk.getManifestClasses(), cachedApk.getDexClasses());
+        }
+        List<String> dexLoadingDetails = new ArrayList<>();
+        if (!packedClasses.isEmpty()) {
+            dexLoadingDetails = DynamicDexLoaderDetection.getJavaDexLoadingDetails(cachedApk);
+        }
+
+        // Renaming goes through the jadx API so generation is the only step that still needs it
+        if (applyDetection(result, packedClasses, dexLoadingDetails)) {
+            logger.info("Loading APK {}", result.getApkFilePath());
+            try (JadxDecompiler jadx = JadxUtils.loadJadx(result.getApkFilePath(), session.getRenamePass())) {
+                generateUnpacker(session, result, jadx);
+            }
+        }
+    }
+
+    // Fills in the verdict and returns whether a Java unpacker should be generated
+    private static boolean applyDetection(TriageResult result, List<String> packedClasses, List<String> dexLoadingDetails) {
+        result.setPackedClasses(packedClasses);
+        result.setDexLoadingDetails(dexLoadingDetails);
+
+        if (packedClasses.isEmpty()) {
+            logger.info("APK is not packed");
+            result.setVerdict(TriageResult.Verdict.NOT_PACKED);
+            return false;
+        }
+
+        logger.info("APK is packed");
+        if (dexLoadingDetails.isEmpty()) {
+            logger.info("Could not find code loader in Java. Probable native packer detected.");
+            result.setVerdict(TriageResult.Verdict.NATIVE_LOADER);
+            return false;
+        }
+
+        result.setVerdict(TriageResult.Verdict.JAVA_LOADER);
+        return true;
+    }
+
+    // The verdict stands, but a loader could be in a class that never got scanned
+    private static void reportFailedClasses(TriageResult result, List<JavaClass> failedClasses) {
+        if (!failedClasses.isEmpty()) {
+            result.setError("Could not decompile " + failedClasses.size() + " classes, the verdict doesn't cover them");
+        }
+    }
+
+    private static void generateUnpacker(AnalysisSession session, TriageResult result, JadxDecompiler jadx) {
+        logger.info("Generating Java unpacker stub");
+        ApkAnalysisDetails details = UnpackerGenerator.generateJava(jadx, session);
+        result.setAnalysisDetails(details);
+        if (details.getBaseDir() == null || details.getFullyQualifiedClassName().isEmpty()) {
+            logger.error("Error generating Java unpacker code.");
+            result.setError("Error generating Java unpacker code");
+        }
+    }
+
+    public static List<String> findPackedClasses(Collection<String> manifestClasses, Set<String> dexClasses) {
+        List<String> packedClasses = new ArrayList<>();
+
+        // Check if there are any classes in the manifest that are not in the dex files
+        for (String className : manifestClasses) {
+            if (!dexClasses.contains(className)) {
+                logger.info("Class {} found in manifest but not in dex files", className);
+                packedClasses.add(className);
+            }
+        }
+        return packedClasses; // Return the list of packed classes
+    }
+}
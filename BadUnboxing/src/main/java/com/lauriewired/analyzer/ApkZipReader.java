@@ -0,0 +1,55 @@
+package com.lauriewired.analyzer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Pre-triage straight from the APK zip, without starting jadx
+ * Gives the same manifest and dex class sets JadxUtils builds from a loaded decompiler
+ */
+public class ApkZipReader {
+    private static final Logger logger = LoggerFactory.getLogger(ApkZipReader.class);
+
+    private static final Pattern dexEntryPattern = Pattern.compile("classes\\d*\\.dex");
+
+    public static Set<String> getManifestClasses(ZipFile apkZip) throws IOException {
+        ZipEntry manifestEntry = apkZip.getEntry("AndroidManifest.xml");
+        if (manifestEntry == null) {
+            throw new IOException("AndroidManifest.xml not found");
+        }
+
+        try (InputStream in = apkZip.getInputStream(manifestEntry)) {
+            return BinaryManifestParser.getComponentClasses(in.readAllBytes());
+        }
+    }
+
+    public static Set<String> getDexClasses(ZipFile apkZip) throws IOException {
+        Set<String> classNames = new HashSet<>();
+
+        Enumeration<? extends ZipEntry> entries = apkZip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!dexEntryPattern.matcher(entry.getName()).matches()) {
+                continue;
+            }
+
+            try (InputStream in = apkZip.getInputStream(entry)) {
+                classNames.addAll(DexClassDefReader.readClassNames(in.readAllBytes()));
+            } catch (IOException e) {
+                // An unreadable dex (often an encrypted payload) just means its classes count as missing
+                logger.warn("Skipping unreadable dex {}: {}", entry.getName(), e.getMessage());
+            }
+        }
+
+        return classNames;
+    }
+}
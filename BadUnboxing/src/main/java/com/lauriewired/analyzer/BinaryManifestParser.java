@@ -0,0 +1,238 @@
+package com.lauriewired.analyzer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * Streaming reader for a compiled (binary XML) AndroidManifest.xml
+ * Walks the chunks once and only emits component class names. Tag and attribute names are compared in place
+ *  inside the string pool, so the only strings ever decoded are the package and the class names themselves.
+ */
+public class BinaryManifestParser {
+    private static final int RES_STRING_POOL_TYPE = 0x0001;
+    private static final int RES_XML_TYPE = 0x0003;
+    private static final int RES_XML_START_ELEMENT_TYPE = 0x0102;
+    private static final int RES_XML_RESOURCE_MAP_TYPE = 0x0180;
+
+    private static final int UTF8_FLAG = 0x100;
+    private static final int TYPE_STRING = 0x03;
+
+    // android:name, matched by resource id since packers like to strip or mangle attribute name strings
+    private static final int ANDROID_NAME_RES_ID = 0x01010003;
+
+    private static final String[] componentTags = {
+        "activity", "service", "receiver", "provider", "application"
+    };
+
+    public interface ComponentVisitor {
+        void visitComponent(String tag, String className);
+    }
+
+    // Class names come back in the "com/example/Foo.class" form used to compare against dex classes
+    public static Set<String> getComponentClasses(byte[] manifest) throws IOException {
+        Set<String> classNames = new HashSet<>();
+        parse(manifest, (tag, className) -> classNames.add(className.replace(".", "/") + ".class"));
+        return classNames;
+    }
+
+    public static void parse(byte[] manifest, ComponentVisitor visitor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(manifest).order(ByteOrder.LITTLE_ENDIAN);
+        if (manifest.length < 8 || u16(buffer, 0) != RES_XML_TYPE) {
+            throw new IOException("Not a binary XML file");
+        }
+
+        StringPool strings = null;
+        int resourceMap = -1;
+        int resourceMapCount = 0;
+        String packageName = "";
+
+        try {
+            int position = u16(buffer, 2);
+            while (position + 8 <= manifest.length) {
+                int chunkType = u16(buffer, position);
+                int chunkHeaderSize = u16(buffer, position + 2);
+                int chunkSize = buffer.getInt(position + 4);
+                if (chunkSize < 8) {
+                    throw new IOException("Invalid chunk size " + chunkSize);
+                }
+
+                switch (chunkType) {
+                    case RES_STRING_POOL_TYPE:
+                        strings = new StringPool(buffer, position);
+                        break;
+                    case RES_XML_RESOURCE_MAP_TYPE:
+                        resourceMap = position + chunkHeaderSize;
+                        resourceMapCount = (chunkSize - chunkHeaderSize) / 4;
+                        break;
+                    case RES_XML_START_ELEMENT_TYPE: {
+                        if (strings == null) {
+                            throw new IOException("Element before string pool");
+                        }
+
+                        int element = position + chunkHeaderSize;
+                        int tagIndex = buffer.getInt(element + 4);
+
+                        if (strings.equalsAscii(tagIndex, "manifest")) {
+                            int valueIndex = findAttributeValue(buffer, element, strings, resourceMap, resourceMapCount, "package", -1);
+                            if (valueIndex >= 0) {
+                                packageName = strings.get(valueIndex);
+                            }
+                        } else {
+                            String tag = matchComponentTag(strings, tagIndex);
+                            if (tag != null) {
+                                int valueIndex = findAttributeValue(buffer, element, strings, resourceMap, resourceMapCount, "name", ANDROID_NAME_RES_ID);
+                                if (valueIndex >= 0) {
+                                    visitor.visitComponent(tag, resolveClassName(packageName, strings.get(valueIndex)));
+                                }
+                            }
+                        }
+                        break;
+                    }
+                    default:
+                        break;
+                }
+                position += chunkSize;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated binary XML", e);
+        }
+    }
+
+    // Component names starting with a dot (or without any package) are relative to the manifest package
+    static String resolveClassName(String packageName, String className) {
+        if (className.startsWith(".")) {
+            return packageName + className;
+        }
+        if (!className.contains(".") && !packageName.isEmpty()) {
+            return packageName + "." + className;
+        }
+        return className;
+    }
+
+    private static String matchComponentTag(StringPool strings, int tagIndex) {
+        for (String tag : componentTags) {
+            if (strings.equalsAscii(tagIndex, tag)) {
+                return tag;
+            }
+        }
+        return null;
+    }
+
+    // Returns the string pool index of the attribute's value, or -1
+    private static int findAttributeValue(ByteBuffer buffer, int element, StringPool strings, int resourceMap, int resourceMapCount,
+                                          String name, int resourceId) {
+        int attributeStart = u16(buffer, element + 8);
+        int attributeSize = u16(buffer, element + 10);
+        int attributeCount = u16(buffer, element + 12);
+
+        for (int i = 0; i < attributeCount; i++) {
+            int attribute = element + attributeStart + i * attributeSize;
+            int nameIndex = buffer.getInt(attribute + 4);
+
+            boolean matches = resourceId != -1 && nameIndex >= 0 && nameIndex < resourceMapCount
+                ? buffer.getInt(resourceMap + nameIndex * 4) == resourceId
+                : strings.equalsAscii(nameIndex, name);
+            if (!matches) {
+                continue;
+            }
+
+            int rawValue = buffer.getInt(attribute + 8);
+            if (rawValue >= 0) {
+                return rawValue;
+            }
+            int dataType = buffer.get(attribute + 15) & 0xFF;
+            if (dataType == TYPE_STRING) {
+                return buffer.getInt(attribute + 16);
+            }
+        }
+        return -1;
+    }
+
+    private static int u16(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset) & 0xFFFF;
+    }
+
+    /*
+     * String pool that decodes nothing up front
+     * Entries are located through the offset table when they're needed
+     */
+    private static class StringPool {
+        private final ByteBuffer buffer;
+        private final int count;
+        private final int offsetTable;
+        private final int stringsStart;
+        private final boolean utf8;
+
+        StringPool(ByteBuffer buffer, int chunk) {
+            this.buffer = buffer;
+            this.count = buffer.getInt(chunk + 8);
+            this.offsetTable = chunk + u16(buffer, chunk + 2);
+            this.stringsStart = chunk + buffer.getInt(chunk + 20);
+            this.utf8 = (buffer.getInt(chunk + 16) & UTF8_FLAG) != 0;
+        }
+
+        // Returns {offset of the first character, length in bytes or chars}
+        private int[] locate(int index) {
+            int offset = stringsStart + buffer.getInt(offsetTable + index * 4);
+            if (utf8) {
+                // UTF-16 length then UTF-8 length, each one or two bytes
+                offset += (buffer.get(offset) & 0x80) != 0 ? 2 : 1;
+                int length = buffer.get(offset) & 0xFF;
+                if ((length & 0x80) != 0) {
+                    length = ((length & 0x7F) << 8) | (buffer.get(offset + 1) & 0xFF);
+                    return new int[] { offset + 2, length };
+                }
+                return new int[] { offset + 1, length };
+            }
+
+            int length = u16(buffer, offset);
+            if ((length & 0x8000) != 0) {
+                length = ((length & 0x7FFF) << 16) | u16(buffer, offset + 2);
+                return new int[] { offset + 4, length };
+            }
+            return new int[] { offset + 2, length };
+        }
+
+        boolean equalsAscii(int index, String expected) {
+            if (index < 0 || index >= count) {
+                return false;
+            }
+
+            int[] location = locate(index);
+            if (location[1] != expected.length()) {
+                return false;
+            }
+            for (int i = 0; i < expected.length(); i++) {
+                int c = utf8 ? buffer.get(location[0] + i) & 0xFF : buffer.getChar(location[0] + i * 2);
+                if (c != expected.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String get(int index) {
+            if (index < 0 || index >= count) {
+                return "";
+            }
+
+            int[] location = locate(index);
+            if (utf8) {
+                ByteBuffer view = buffer.duplicate();
+                view.position(location[0]);
+                view.limit(location[0] + location[1]);
+                return StandardCharsets.UTF_8.decode(view).toString();
+            }
+
+            char[] chars = new char[location[1]];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = buffer.getChar(location[0] + i * 2);
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.lauriewired.analyzer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jadx.api.JadxDecompiler;
+import jadx.api.JavaClass;
+import jadx.core.dex.nodes.ClassNode;
+
+/*
+ * Class level dependency graph built once per APK from jadx's usage information
+ * jadx collects these from the bytecode while loading so nothing needs to be decompiled
+ */
+public class ClassDependencyGraph {
+    private static final Logger logger = LoggerFactory.getLogger(ClassDependencyGraph.class);
+
+    private final Map<JavaClass, List<JavaClass>> dependencies = new HashMap<>();
+
+    private ClassDependencyGraph() {
+    }
+
+    public static ClassDependencyGraph build(JadxDecompiler jadx) {
+        ClassDependencyGraph graph = new ClassDependencyGraph();
+
+        List<JavaClass> classes = jadx.getClasses();
+        Map<ClassNode, JavaClass> javaClasses = new HashMap<>(classes.size() * 2);
+        for (JavaClass cls : classes) {
+            javaClasses.put(cls.getClassNode(), cls);
+        }
+
+        for (JavaClass cls : classes) {
+            List<ClassNode> dependencyNodes = cls.getClassNode().getDependencies();
+            List<JavaClass> clsDependencies = new ArrayList<>(dependencyNodes.size());
+            for (ClassNode dependencyNode : dependencyNodes) {
+                // Dependencies are recorded against top level classes, anything else is outside the APK
+                JavaClass dependency = javaClasses.get(dependencyNode);
+                if (dependency != null && dependency != cls) {
+                    clsDependencies.add(dependency);
+                }
+            }
+            graph.dependencies.put(cls, clsDependencies);
+        }
+
+        logger.info("Built dependency graph for {} classes", classes.size());
+        return graph;
+    }
+
+    public List<JavaClass> getDependencies(JavaClass cls) {
+        return dependencies.getOrDefault(cls, new ArrayList<>());
+    }
+
+    // Breadth first walk from the root, only following classes accepted by the filter
+    public Set<JavaClass> slice(JavaClass root, Predicate<JavaClass> filter) {
+        Set<JavaClass> visited = new LinkedHashSet<>();
+        Queue<JavaClass> queue = new ArrayDeque<>();
+        visited.add(root);
+        queue.add(root);
+
+        while (!queue.isEmpty()) {
+            JavaClass current = queue.poll();
+            for (JavaClass dependency : getDependencies(current)) {
+                if (filter.test(dependency) && visited.add(dependency)) {
+                    logger.info("Adding class {} to referenced classes", dependency.getName());
+                    queue.add(dependency);
+                }
+            }
+        }
+
+        return visited;
+    }
+}
@@ -0,0 +1,98 @@
+package com.lauriewired.analyzer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * One generated source file, kept as its package, import lines and the code after them
+ * Stages edit the part they care about and the file text is only assembled when it gets written
+ */
+public class CompilationUnit {
+    private final String packageName;
+    private final String className;
+    private final List<String> imports;
+    private final StringBuilder body;
+
+    public CompilationUnit(String packageName, String className, List<String> imports, StringBuilder body) {
+        this.packageName = packageName;
+        this.className = className;
+        this.imports = imports;
+        this.body = body;
+    }
+
+    // Splits decompiled code at the end of its package and import header
+    public static CompilationUnit parse(String className, String code) {
+        String packageName = "";
+        List<String> imports = new ArrayList<>();
+
+        int position = 0;
+        while (position < code.length()) {
+            int lineEnd = code.indexOf('\n', position);
+            if (lineEnd == -1) {
+                lineEnd = code.length();
+            }
+            String line = code.substring(position, lineEnd).trim();
+
+            if (line.startsWith("package ")) {
+                packageName = line.substring("package ".length(), line.length() - 1).trim();
+            } else if (line.startsWith("import ")) {
+                imports.add(line);
+            } else if (!line.isEmpty()) {
+                break;
+            }
+            position = lineEnd + 1;
+        }
+
+        return new CompilationUnit(packageName, className, imports, new StringBuilder(code.substring(Math.min(position, code.length()))));
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    // Full import statements, e.g. "import java.io.File;"
+    public List<String> getImports() {
+        return imports;
+    }
+
+    public StringBuilder getBody() {
+        return body;
+    }
+
+    public void setBody(CharSequence code) {
+        body.setLength(0);
+        body.append(code);
+    }
+
+    // Goes in front of the other imports, unless the class is already imported
+    public void addImport(String qualifiedName) {
+        String importStatement = "import " + qualifiedName + ";";
+        if (!imports.contains(importStatement)) {
+            imports.add(0, importStatement);
+        }
+    }
+
+    public File getTargetFile(File sourceDir) {
+        File packageDir = packageName.isEmpty() ? sourceDir : new File(sourceDir, packageName.replace('.', File.separatorChar));
+        return new File(packageDir, className + ".java");
+    }
+
+    public String toSource() {
+        StringBuilder source = new StringBuilder(body.length() + 256);
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        for (String importStatement : imports) {
+            source.append(importStatement).append("\n");
+        }
+        if (!imports.isEmpty()) {
+            source.append("\n");
+        }
+        return source.append(body).toString();
+    }
+}
@@ -0,0 +1,175 @@
+package com.lauriewired.analyzer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Class files compiled from one generated project, grouped by the source file they came from along with
+ *  that file's SHA-256, so UnpackerRunner only recompiles sources that changed
+ * Saved under the decompilation cache directory, one entry per project, so a new window or another run
+ *  over the same project starts warm. badunboxing.cache=false keeps it in memory only
+ *
+ * compiled.bin is laid out as:
+ *   magic, format version, java.version of the compiler
+ *   unit count, then per unit: source path, source hash, class count, then (name, length, bytes) per class
+ */
+public class CompiledClassCache {
+    private static final Logger logger = LoggerFactory.getLogger(CompiledClassCache.class);
+
+    private static final int MAGIC = 0x42554343; // "BUCC"
+    private static final int FORMAT_VERSION = 1;
+    private static final String CACHE_FILE_NAME = "compiled.bin";
+    private static final String JAVA_VERSION = System.getProperty("java.version");
+
+    private final File cacheFile;
+    private final Map<String, Unit> units = new TreeMap<>();
+
+    private static class Unit {
+        private final String sourceHash;
+        private final Map<String, byte[]> classes;
+
+        private Unit(String sourceHash, Map<String, byte[]> classes) {
+            this.sourceHash = sourceHash;
+            this.classes = classes;
+        }
+    }
+
+    private CompiledClassCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    // Keyed by where the project is, the sources themselves are checked file by file
+    public static CompiledClassCache load(File sourceDir) {
+        String projectKey = DecompilationCache.sha256(
+            sourceDir.getAbsolutePath().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        File cacheFile = new File(new File(new File(DecompilationCache.getCacheDir(), "compiled"), projectKey), CACHE_FILE_NAME);
+        CompiledClassCache cache = new CompiledClassCache(cacheFile);
+
+        if (!DecompilationCache.isEnabled() || !cacheFile.isFile()) {
+            return cache;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a BadUnboxing compiled class cache or unsupported version");
+            }
+            // Classes from another JDK may not load on this one
+            if (!JAVA_VERSION.equals(in.readUTF())) {
+                logger.info("Ignoring compiled classes from another Java version at {}", cacheFile.getAbsolutePath());
+                return cache;
+            }
+
+            int unitCount = in.readInt();
+            for (int i = 0; i < unitCount; i++) {
+                String sourcePath = in.readUTF();
+                String sourceHash = in.readUTF();
+                int classCount = in.readInt();
+                Map<String, byte[]> classes = new HashMap<>();
+                for (int j = 0; j < classCount; j++) {
+                    String className = in.readUTF();
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    classes.put(className, bytes);
+                }
+                cache.units.put(sourcePath, new Unit(sourceHash, classes));
+            }
+            logger.info("Loaded {} compiled units from {}", unitCount, cacheFile.getAbsolutePath());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable compiled class cache " + cacheFile.getAbsolutePath(), e);
+            cache.units.clear();
+        }
+        return cache;
+    }
+
+    public void save() {
+        if (!DecompilationCache.isEnabled()) {
+            return;
+        }
+
+        File entryDir = cacheFile.getParentFile();
+        entryDir.mkdirs();
+
+        try {
+            // Write to a temporary file first so readers never see a half written entry
+            File tempFile = File.createTempFile(CACHE_FILE_NAME, ".tmp", entryDir);
+            try {
+                writeCacheFile(tempFile);
+                Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                tempFile.delete();
+            }
+            logger.info("Cached {} compiled units at {}", units.size(), cacheFile.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warn("Error writing compiled class cache " + cacheFile.getAbsolutePath(), e);
+        }
+    }
+
+    private void writeCacheFile(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(JAVA_VERSION);
+
+            out.writeInt(units.size());
+            for (Map.Entry<String, Unit> unit : units.entrySet()) {
+                out.writeUTF(unit.getKey());
+                out.writeUTF(unit.getValue().sourceHash);
+                out.writeInt(unit.getValue().classes.size());
+                for (Map.Entry<String, byte[]> cls : unit.getValue().classes.entrySet()) {
+                    out.writeUTF(cls.getKey());
+                    out.writeInt(cls.getValue().length);
+                    out.write(cls.getValue());
+                }
+            }
+        }
+    }
+
+    // Source paths are relative to the project's src directory, with '/' separators
+    public Set<String> getSourcePaths() {
+        return Collections.unmodifiableSet(units.keySet());
+    }
+
+    // Null when the source was never compiled
+    public String getSourceHash(String sourcePath) {
+        Unit unit = units.get(sourcePath);
+        return unit == null ? null : unit.sourceHash;
+    }
+
+    public Set<String> getClassNames(String sourcePath) {
+        Unit unit = units.get(sourcePath);
+        return unit == null ? Collections.emptySet() : Collections.unmodifiableSet(unit.classes.keySet());
+    }
+
+    public void put(String sourcePath, String sourceHash, Map<String, byte[]> classes) {
+        units.put(sourcePath, new Unit(sourceHash, classes));
+    }
+
+    public void remove(String sourcePath) {
+        units.remove(sourcePath);
+    }
+
+    public Map<String, byte[]> getAllClasses() {
+        Map<String, byte[]> classes = new HashMap<>();
+        for (Unit unit : units.values()) {
+            classes.putAll(unit.classes);
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,306 @@
+package com.lauriewired.analyzer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jadx.api.JavaClass;
+
+/*
+ * On-disk cache of everything triage needs from jadx, keyed by the APK's SHA-256 and the analysis options
+ *
+ * Each APK gets one classes.bin file laid out as:
+ *   magic, format version
+ *   manifest class count, then (offset, length) per manifest class
+ *   dex class count, then (offset, length) for full name, raw name and code per class
+ *   string data as UTF-8, offsets are relative to the start of this section
+ * A code length of -1 means the class was never decompiled. The file is memory mapped
+ *  and code is only read when something asks for it.
+ */
+public class DecompilationCache {
+    private static final Logger logger = LoggerFactory.getLogger(DecompilationCache.class);
+
+    private static final int MAGIC = 0x42554443; // "BUDC"
+    private static final int FORMAT_VERSION = 2;
+    private static final String CACHE_FILE_NAME = "classes.bin";
+
+    private static final File CACHE_DIR = new File(System.getProperty("badunboxing.cache.dir",
+        System.getProperty("user.home") + File.separator + ".badunboxing" + File.separator + "cache"));
+    private static final boolean ENABLED = !"false".equals(System.getProperty("badunboxing.cache"));
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static File getCacheDir() {
+        return CACHE_DIR;
+    }
+
+    // The options string covers anything that changes what ends up in the cache
+    public static String computeKey(String apkFilePath, String analysisOptions) throws IOException {
+        String apkHash = sha256(new File(apkFilePath));
+        String optionsHash = toHex(newDigest().digest(analysisOptions.getBytes(StandardCharsets.UTF_8)));
+        return apkHash + File.separator + optionsHash.substring(0, 16);
+    }
+
+    public static String sha256(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    public static String sha256(byte[] data) {
+        return toHex(newDigest().digest(data));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    // Returns null when there's no usable cache entry
+    public static CachedApk load(String key) {
+        if (!ENABLED) {
+            return null;
+        }
+
+        File cacheFile = new File(new File(CACHE_DIR, key), CACHE_FILE_NAME);
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CachedApk cached = CachedApk.read(buffer);
+            logger.info("Loaded {} cached classes from {}", cached.getClasses().size(), cacheFile.getAbsolutePath());
+            return cached;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable cache file " + cacheFile.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    public static void store(String key, Collection<String> manifestClasses, List<JavaClass> classes, Map<JavaClass, String> decompiledCode) {
+        if (!ENABLED) {
+            return;
+        }
+
+        File entryDir = new File(CACHE_DIR, key);
+        entryDir.mkdirs();
+        File cacheFile = new File(entryDir, CACHE_FILE_NAME);
+
+        try {
+            // Write to a temporary file first so readers never see a half written entry
+            File tempFile = File.createTempFile(CACHE_FILE_NAME, ".tmp", entryDir);
+            try {
+                writeCacheFile(tempFile, manifestClasses, classes, decompiledCode);
+                Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                tempFile.delete();
+            }
+            logger.info("Cached {} classes ({} decompiled) at {}", classes.size(), decompiledCode.size(), cacheFile.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warn("Error writing cache file " + cacheFile.getAbsolutePath(), e);
+        }
+    }
+
+    private static void writeCacheFile(File file, Collection<String> manifestClasses, List<JavaClass> classes, Map<JavaClass, String> decompiledCode) throws IOException {
+        List<byte[]> strings = new ArrayList<>();
+        List<String> manifestList = new ArrayList<>(manifestClasses);
+
+        for (String manifestClass : manifestList) {
+            strings.add(manifestClass.getBytes(StandardCharsets.UTF_8));
+        }
+        for (JavaClass cls : classes) {
+            strings.add(cls.getFullName().getBytes(StandardCharsets.UTF_8));
+            strings.add(cls.getRawName().getBytes(StandardCharsets.UTF_8));
+            String code = decompiledCode.get(cls);
+            strings.add(code == null ? null : code.getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+
+            // Index, strings go in the same order they were collected above
+            int offset = 0;
+            int stringIndex = 0;
+            out.writeInt(manifestList.size());
+            for (int i = 0; i < manifestList.size(); i++) {
+                offset = writeStringRef(out, strings.get(stringIndex++), offset);
+            }
+            out.writeInt(classes.size());
+            for (int i = 0; i < classes.size() * 3; i++) {
+                offset = writeStringRef(out, strings.get(stringIndex++), offset);
+            }
+
+            for (byte[] string : strings) {
+                if (string != null) {
+                    out.write(string);
+                }
+            }
+        }
+    }
+
+    private static int writeStringRef(DataOutputStream out, byte[] string, int offset) throws IOException {
+        if (string == null) {
+            out.writeInt(offset);
+            out.writeInt(-1);
+            return offset;
+        }
+        out.writeInt(offset);
+        out.writeInt(string.length);
+        return offset + string.length;
+    }
+
+    public static class CachedApk {
+        private final List<String> manifestClasses;
+        private final List<CachedClass> classes;
+
+        private CachedApk(List<String> manifestClasses, List<CachedClass> classes) {
+            this.manifestClasses = manifestClasses;
+            this.classes = classes;
+        }
+
+        private static CachedApk read(ByteBuffer buffer) throws IOException {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not a BadUnboxing cache file or unsupported version");
+            }
+
+            int manifestCount = buffer.getInt();
+            int[] manifestRefs = readRefs(buffer, manifestCount);
+            int classCount = buffer.getInt();
+            int[] classRefs = readRefs(buffer, classCount * 3);
+
+            // String data starts right after the index
+            ByteBuffer data = buffer.slice();
+
+            List<String> manifestClasses = new ArrayList<>(manifestCount);
+            for (int i = 0; i < manifestCount; i++) {
+                manifestClasses.add(decode(data, manifestRefs[i * 2], manifestRefs[i * 2 + 1]));
+            }
+
+            List<CachedClass> classes = new ArrayList<>(classCount);
+            for (int i = 0; i < classCount; i++) {
+                int ref = i * 6;
+                classes.add(new CachedClass(
+                    decode(data, classRefs[ref], classRefs[ref + 1]),
+                    decode(data, classRefs[ref + 2], classRefs[ref + 3]),
+                    data, classRefs[ref + 4], classRefs[ref + 5]));
+            }
+
+            return new CachedApk(manifestClasses, classes);
+        }
+
+        private static int[] readRefs(ByteBuffer buffer, int count) {
+            int[] refs = new int[count * 2];
+            for (int i = 0; i < refs.length; i++) {
+                refs[i] = buffer.getInt();
+            }
+            return refs;
+        }
+
+        public List<String> getManifestClasses() {
+            return manifestClasses;
+        }
+
+        public List<CachedClass> getClasses() {
+            return classes;
+        }
+
+        // Same format as JadxUtils.getDexClasses
+        public Set<String> getDexClasses() {
+            Set<String> classNames = new HashSet<>();
+            for (CachedClass cls : classes) {
+                classNames.add(cls.getRawName().replace('.', '/') + ".class");
+            }
+            return classNames;
+        }
+    }
+
+    public static class CachedClass {
+        private final String fullName;
+        private final String rawName;
+        private final ByteBuffer data;
+        private final int codeOffset;
+        private final int codeLength;
+
+        private CachedClass(String fullName, String rawName, ByteBuffer data, int codeOffset, int codeLength) {
+            this.fullName = fullName;
+            this.rawName = rawName;
+            this.data = data;
+            this.codeOffset = codeOffset;
+            this.codeLength = codeLength;
+        }
+
+        public String getFullName() {
+            return fullName;
+        }
+
+        public String getRawName() {
+            return rawName;
+        }
+
+        public boolean hasCode() {
+            return codeLength >= 0;
+        }
+
+        // UTF-8 code straight from the mapped file, nothing is copied
+        public ByteBuffer getCodeBytes() {
+            ByteBuffer view = data.duplicate();
+            view.position(codeOffset);
+            view.limit(codeOffset + Math.max(codeLength, 0));
+            return view.slice();
+        }
+
+        public String getCode() {
+            return hasCode() ? decode(data, codeOffset, codeLength) : null;
+        }
+    }
+
+    private static String decode(ByteBuffer data, int offset, int length) {
+        ByteBuffer view = data.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        return StandardCharsets.UTF_8.decode(view).toString();
+    }
+}
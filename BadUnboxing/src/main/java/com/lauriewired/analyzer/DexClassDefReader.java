@@ -0,0 +1,85 @@
+package com.lauriewired.analyzer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * Lists the classes defined in a dex file straight from its class_defs table
+ * Only the header, string_ids, type_ids and class_defs are touched, no code is parsed
+ */
+public class DexClassDefReader {
+    private static final int HEADER_SIZE = 0x70;
+    private static final int STRING_IDS_OFF = 0x3C;
+    private static final int TYPE_IDS_SIZE = 0x40;
+    private static final int TYPE_IDS_OFF = 0x44;
+    private static final int CLASS_DEFS_SIZE = 0x60;
+    private static final int CLASS_DEFS_OFF = 0x64;
+    private static final int CLASS_DEF_ITEM_SIZE = 32;
+
+    // Class names come back in the same "com/example/Foo.class" form as JadxUtils.getDexClasses
+    public static Set<String> readClassNames(byte[] dex) throws IOException {
+        if (dex.length < HEADER_SIZE || dex[0] != 'd' || dex[1] != 'e' || dex[2] != 'x' || dex[3] != '\n') {
+            throw new IOException("Not a dex file");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(dex).order(ByteOrder.LITTLE_ENDIAN);
+        int stringIdsOff = buffer.getInt(STRING_IDS_OFF);
+        int typeIdsSize = buffer.getInt(TYPE_IDS_SIZE);
+        int typeIdsOff = buffer.getInt(TYPE_IDS_OFF);
+        int classDefsSize = buffer.getInt(CLASS_DEFS_SIZE);
+        int classDefsOff = buffer.getInt(CLASS_DEFS_OFF);
+
+        Set<String> classNames = new HashSet<>(classDefsSize * 2);
+        try {
+            for (int i = 0; i < classDefsSize; i++) {
+                int typeIdx = buffer.getInt(classDefsOff + i * CLASS_DEF_ITEM_SIZE);
+                if (typeIdx < 0 || typeIdx >= typeIdsSize) {
+                    throw new IOException("Invalid class_def type index " + typeIdx);
+                }
+
+                int descriptorIdx = buffer.getInt(typeIdsOff + typeIdx * 4);
+                int stringDataOff = buffer.getInt(stringIdsOff + descriptorIdx * 4);
+                String descriptor = readString(buffer, stringDataOff);
+
+                // Lcom/example/Foo; -> com/example/Foo.class
+                if (descriptor.startsWith("L") && descriptor.endsWith(";")) {
+                    classNames.add(descriptor.substring(1, descriptor.length() - 1) + ".class");
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated dex file", e);
+        }
+        return classNames;
+    }
+
+    private static String readString(ByteBuffer buffer, int offset) {
+        // string_data_item starts with the UTF-16 length as uleb128, then null terminated MUTF-8
+        int position = offset;
+        while ((buffer.get(position) & 0x80) != 0) {
+            position++;
+        }
+        position++;
+
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            int b = buffer.get(position++) & 0xFF;
+            if (b == 0) {
+                break;
+            }
+            if (b < 0x80) {
+                sb.append((char) b);
+            } else if ((b & 0xE0) == 0xC0) {
+                int b2 = buffer.get(position++) & 0x3F;
+                sb.append((char) (((b & 0x1F) << 6) | b2));
+            } else {
+                int b2 = buffer.get(position++) & 0x3F;
+                int b3 = buffer.get(position++) & 0x3F;
+                sb.append((char) (((b & 0x0F) << 12) | (b2 << 6) | b3));
+            }
+        }
+        return sb.toString();
+    }
+}
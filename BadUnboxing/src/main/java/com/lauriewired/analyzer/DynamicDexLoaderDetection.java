@@ -2,38 +2,209 @@ package com.lauriewired.analyzer;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import jadx.api.JadxDecompiler;
 import jadx.api.JavaClass;
+import jadx.api.plugins.input.data.ICodeReader;
+import jadx.api.plugins.input.data.IFieldRef;
+import jadx.api.plugins.input.data.IMethodRef;
+import jadx.api.plugins.input.insns.InsnData;
+import jadx.core.dex.instructions.args.ArgType;
+import jadx.core.dex.nodes.ClassNode;
+import jadx.core.dex.nodes.FieldNode;
+import jadx.core.dex.nodes.MethodNode;
 
 public class DynamicDexLoaderDetection  {
     private static final Logger logger = LoggerFactory.getLogger(DynamicDexLoaderDetection.class);
 
-    private static final Set<String> dynamicDexLoadingKeywords = new HashSet<>(Arrays.asList(
+    private static final List<String> dynamicDexLoadingKeywords = Arrays.asList(
         "DexClassLoader", "PathClassLoader", "InMemoryDexClassLoader", "BaseDexClassLoader", "loadDex", "OpenMemory"
-    ));
+    );
+
+    // All keywords are matched in one pass over the class code
+    private static final KeywordScanner keywordScanner = new KeywordScanner(dynamicDexLoadingKeywords);
+
+    public enum DetectionMode {
+        // Look at type, method and field references and string constants in the bytecode,
+        //  then only decompile the classes that matched
+        BYTECODE,
+        // Decompile every class and scan the generated source
+        SOURCE
+    }
 
     public static List<String> getJavaDexLoadingDetails(JadxDecompiler jadx) {
+        return getJavaDexLoadingDetails(jadx, DetectionMode.BYTECODE);
+    }
+
+    public static List<String> getJavaDexLoadingDetails(JadxDecompiler jadx, DetectionMode mode) {
+        return getJavaDexLoadingDetails(jadx, mode, null, null);
+    }
+
+    // Any class decompiled along the way has its code added to decompiledCode when it's given,
+    //  classes that couldn't be decompiled go to failedClasses, the details can't speak for those
+    public static List<String> getJavaDexLoadingDetails(JadxDecompiler jadx, DetectionMode mode, Map<JavaClass, String> decompiledCode,
+                                                        List<JavaClass> failedClasses) {
+        List<JavaClass> classes = jadx.getClasses();
+        if (mode == DetectionMode.BYTECODE) {
+            classes = findCandidateClasses(classes);
+            logger.info("Found {} classes referencing dex loading in bytecode", classes.size());
+        }
+
+        // Decompile and scan on all cores
+        Map<JavaClass, List<String>> matches = new ConcurrentHashMap<>();
+        List<JavaClass> failed = JadxUtils.forEachClassParallel(jadx, classes, cls -> {
+            String code = cls.getCode();
+            if (decompiledCode != null) {
+                decompiledCode.put(cls, code);
+            }
+
+            List<String> found = findKeywords(code);
+            if (!found.isEmpty()) {
+                matches.put(cls, found);
+            }
+        });
+        if (failedClasses != null) {
+            failedClasses.addAll(failed);
+        }
+
+        // Report in class order so the output doesn't depend on thread scheduling
         List<String> details = new ArrayList<>();
-        for (JavaClass cls : jadx.getClasses()) {
-            String classCode = cls.getCode();
-            for (String keyword : dynamicDexLoadingKeywords) {
-                if (classCode.contains(keyword)) {
-                    String detail = String.format("Found keyword '%s' in class '%s'", keyword, cls.getFullName());
-                    logger.info(detail);
-                    details.add(detail);
-                }
+        for (JavaClass cls : classes) {
+            List<String> found = matches.get(cls);
+            if (found != null) {
+                addDetails(details, found, cls.getFullName());
             }
         }
         return details;
     }
 
+    // Same scan over code from the decompilation cache, straight from the mapped bytes
+    public static List<String> getJavaDexLoadingDetails(DecompilationCache.CachedApk cachedApk) {
+        List<DecompilationCache.CachedClass> classes = cachedApk.getClasses();
+        List<List<String>> matches = classes.parallelStream()
+            .map(cls -> cls.hasCode() ? keywordScanner.findAll(cls.getCodeBytes()) : new ArrayList<String>())
+            .collect(Collectors.toList());
+
+        List<String> details = new ArrayList<>();
+        for (int i = 0; i < classes.size(); i++) {
+            addDetails(details, matches.get(i), classes.get(i).getFullName());
+        }
+        return details;
+    }
+
+    static List<String> findKeywords(CharSequence code) {
+        return keywordScanner.findAll(code);
+    }
+
+    private static void addDetails(List<String> details, List<String> keywords, String className) {
+        for (String keyword : keywords) {
+            String detail = String.format("Found keyword '%s' in class '%s'", keyword, className);
+            logger.info(detail);
+            details.add(detail);
+        }
+    }
+
+    // Changing the keywords changes which classes get decompiled, so this is part of the cache key
+    public static String getKeywordsFingerprint() {
+        return String.join(",", dynamicDexLoadingKeywords);
+    }
+
+    private static List<JavaClass> findCandidateClasses(List<JavaClass> classes) {
+        // Reading raw instructions is cheap compared to decompiling so a single thread is plenty
+        List<JavaClass> candidates = new ArrayList<>();
+        for (JavaClass cls : classes) {
+            if (referencesKeyword(cls.getClassNode())) {
+                candidates.add(cls);
+            }
+        }
+        return candidates;
+    }
+
+    private static boolean referencesKeyword(ClassNode cls) {
+        if (typeMatches(cls.getSuperClass())) {
+            return true;
+        }
+        for (ArgType interfaceType : cls.getInterfaces()) {
+            if (typeMatches(interfaceType)) {
+                return true;
+            }
+        }
+
+        for (FieldNode field : cls.getFields()) {
+            if (keywordScanner.containsAny(field.getName()) || typeMatches(field.getType())) {
+                return true;
+            }
+        }
+
+        for (MethodNode method : cls.getMethods()) {
+            if (keywordScanner.containsAny(method.getName())) {
+                return true;
+            }
+
+            ICodeReader codeReader = method.getCodeReader();
+            if (codeReader != null && codeReferencesKeyword(codeReader)) {
+                return true;
+            }
+        }
+
+        // Inner classes end up in the code of their top level class
+        for (ClassNode innerClass : cls.getInnerClasses()) {
+            if (referencesKeyword(innerClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean typeMatches(ArgType type) {
+        return type != null && keywordScanner.containsAny(type.toString());
+    }
+
+    private static boolean codeReferencesKeyword(ICodeReader codeReader) {
+        boolean[] found = { false };
+        codeReader.visitInstructions(insn -> {
+            if (!found[0] && insnReferencesKeyword(insn)) {
+                found[0] = true;
+            }
+        });
+        return found[0];
+    }
+
+    private static boolean insnReferencesKeyword(InsnData insn) {
+        switch (insn.getIndexType()) {
+            case TYPE_REF:
+                insn.decode();
+                return keywordScanner.containsAny(insn.getIndexAsType());
+            case STRING_REF:
+                // Catches reflective lookups like Class.forName("dalvik.system.DexClassLoader")
+                insn.decode();
+                return keywordScanner.containsAny(insn.getIndexAsString());
+            case FIELD_REF: {
+                insn.decode();
+                IFieldRef fieldRef = insn.getIndexAsField();
+                return keywordScanner.containsAny(fieldRef.getParentClassType())
+                    || keywordScanner.containsAny(fieldRef.getName())
+                    || keywordScanner.containsAny(fieldRef.getType());
+            }
+            case METHOD_REF: {
+                insn.decode();
+                IMethodRef methodRef = insn.getIndexAsMethod();
+                methodRef.load();
+                return keywordScanner.containsAny(methodRef.getParentClassType())
+                    || keywordScanner.containsAny(methodRef.getName());
+            }
+            default:
+                return false;
+        }
+    }
+
     public static boolean hasNativeDexLoading() {
         // TODO
 
@@ -0,0 +1,56 @@
+package com.lauriewired.analyzer;
+
+/*
+ * Budgets for one supervised unpacker run, see UnpackerWatchdog
+ * Defaults can be changed with badunboxing.run.timeout and badunboxing.run.cpu (seconds),
+ *  badunboxing.run.heap (MB) and badunboxing.run.output (KB)
+ */
+public class ExecutionLimits {
+    private static final int DEFAULT_WALL_CLOCK_SECONDS = 120;
+    private static final int DEFAULT_CPU_SECONDS = 120;
+    private static final int DEFAULT_MAX_HEAP_MB = 1024;
+    private static final int DEFAULT_MAX_OUTPUT_KB = 4096;
+
+    private final long wallClockMillis;
+    private final long cpuMillis;
+    private final int maxHeapMb;
+    private final long maxOutputBytes;
+
+    public ExecutionLimits(long wallClockMillis, long cpuMillis, int maxHeapMb, long maxOutputBytes) {
+        this.wallClockMillis = wallClockMillis;
+        this.cpuMillis = cpuMillis;
+        this.maxHeapMb = maxHeapMb;
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    public static ExecutionLimits fromSystemProperties() {
+        return new ExecutionLimits(
+            Integer.getInteger("badunboxing.run.timeout", DEFAULT_WALL_CLOCK_SECONDS) * 1000L,
+            Integer.getInteger("badunboxing.run.cpu", DEFAULT_CPU_SECONDS) * 1000L,
+            Integer.getInteger("badunboxing.run.heap", DEFAULT_MAX_HEAP_MB),
+            Integer.getInteger("badunboxing.run.output", DEFAULT_MAX_OUTPUT_KB) * 1024L);
+    }
+
+    public long getWallClockMillis() {
+        return wallClockMillis;
+    }
+
+    // Counts every thread of the child, so JIT and GC time is included
+    public long getCpuMillis() {
+        return cpuMillis;
+    }
+
+    public int getMaxHeapMb() {
+        return maxHeapMb;
+    }
+
+    public long getMaxOutputBytes() {
+        return maxOutputBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "wall clock " + wallClockMillis / 1000 + "s, CPU " + cpuMillis / 1000 + "s, heap "
+            + maxHeapMb + "MB, output " + maxOutputBytes / 1024 + "KB";
+    }
+}
@@ -1,46 +1,121 @@
 package com.lauriewired.analyzer;
 
 import java.io.File;
-import java.io.StringReader;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xmlpull.v1.XmlPullParser;
-import org.xmlpull.v1.XmlPullParserFactory;
 
 import jadx.api.JadxArgs;
 import jadx.api.JadxDecompiler;
 import jadx.api.JavaClass;
 import jadx.api.ResourceFile;
+import jadx.api.ResourcesLoader;
+import jadx.api.plugins.pass.JadxPass;
 
 public class JadxUtils {
     private static final Logger logger = LoggerFactory.getLogger(JadxUtils.class);
 
-    public static JadxDecompiler loadJadx(String apkFilePath) {
+    // Shared by every analysis so batch mode doesn't multiply the thread count per APK
+    private static final ExecutorService decompileExecutor = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "BadUnboxing-decompile");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    // Anything that changes decompiled output has to be part of getOptionsFingerprint
+    private static final boolean SHOW_INCONSISTENT_CODE = true;
+    private static final boolean DEOBFUSCATION_ON = true;
+    private static final boolean SOURCE_NAME_AS_CLASS_ALIAS = true;
+
+    // Custom passes only take effect if they're added before loading
+    // Throws when jadx can't load the file, a decompiler without classes would pass for an empty APK
+    public static JadxDecompiler loadJadx(String apkFilePath, JadxPass... customPasses) {
         File apkFile = new File(apkFilePath);
         File outputDir = new File(apkFile.getParent(), "output_temp");
 
         JadxArgs jadxArgs = new JadxArgs();
         jadxArgs.setInputFile(apkFile);
         jadxArgs.setOutDir(outputDir);
-        jadxArgs.setShowInconsistentCode(true);
+        jadxArgs.setShowInconsistentCode(SHOW_INCONSISTENT_CODE);
         jadxArgs.setSkipResources(true);
-        jadxArgs.setDeobfuscationOn(true);
-        jadxArgs.setUseSourceNameAsClassAlias(true);
+        jadxArgs.setDeobfuscationOn(DEOBFUSCATION_ON);
+        jadxArgs.setUseSourceNameAsClassAlias(SOURCE_NAME_AS_CLASS_ALIAS);
 
         JadxDecompiler jadx = new JadxDecompiler(jadxArgs);
+        for (JadxPass customPass : customPasses) {
+            jadx.addCustomPass(customPass);
+        }
         try {
             jadx.load();
             //jadx.save();
         } catch (Exception e) {
-            logger.error("Error loading APK", e);
+            jadx.close();
+            throw new IllegalStateException("Error loading " + apkFilePath, e);
         }
 
         return jadx;
     }
 
+    public static String getOptionsFingerprint() {
+        return "jadx=" + JadxDecompiler.getVersion()
+            + ";showInconsistentCode=" + SHOW_INCONSISTENT_CODE
+            + ";deobfuscation=" + DEOBFUSCATION_ON
+            + ";sourceNameAsClassAlias=" + SOURCE_NAME_AS_CLASS_ALIAS;
+    }
+
+    /*
+     * Runs the action on every class across all cores
+     * jadx's scheduler puts classes that depend on each other into the same batch, and each batch stays on one thread
+     * A class the action throws on is logged and skipped, the classes that failed are returned in input order
+     */
+    public static List<JavaClass> forEachClassParallel(JadxDecompiler jadx, List<JavaClass> classes, Consumer<JavaClass> action) {
+        Set<JavaClass> failed = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        for (List<JavaClass> batch : jadx.getDecompileScheduler().buildBatches(classes)) {
+            futures.add(decompileExecutor.submit(() -> {
+                for (JavaClass cls : batch) {
+                    try {
+                        action.accept(cls);
+                    } catch (Exception e) {
+                        logger.error("Error processing class " + cls.getFullName(), e);
+                        failed.add(cls);
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while processing classes", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error processing classes", e.getCause());
+            }
+        }
+
+        List<JavaClass> failedInOrder = new ArrayList<>();
+        for (JavaClass cls : classes) {
+            if (failed.contains(cls)) {
+                failedInOrder.add(cls);
+            }
+        }
+        return failedInOrder;
+    }
+
     public static JavaClass getJavaClassByName(JadxDecompiler jadx, String className) {
         for (JavaClass javaClass : jadx.getClasses()) {
             if (javaClass.getFullName().equals(className)) {
@@ -63,40 +138,23 @@ public class JadxUtils {
     public static Set<String> getManifestClasses(String apkFilePath, JadxDecompiler jadx) throws Exception {
         Set<String> classNames = new HashSet<>();
 
-        String manifestContent = "";
         for (ResourceFile resource : jadx.getResources()) {
             if (resource.getOriginalName().equals("AndroidManifest.xml")) {
                 logger.info("Found AndroidManifest.xml");
-                manifestContent = resource.loadContent().getText().getCodeStr();
-                break;
-            }
-        }
 
-        if (!manifestContent.equals("")) {
-            // Parse the AndroidManifest.xml
-            XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
-            XmlPullParser parser = factory.newPullParser();
-            parser.setInput(new StringReader(manifestContent)); // Use StringReader here
-
-            int eventType = parser.getEventType();
-            while (eventType != XmlPullParser.END_DOCUMENT) {
-                if (eventType == XmlPullParser.START_TAG) {
-                    String name = parser.getName();
-                    if ("activity".equals(name) || "service".equals(name) || "receiver".equals(name) || "provider".equals(name)) {
-                        for (int i = 0; i < parser.getAttributeCount(); i++) {
-                            if ("android:name".equals(parser.getAttributeName(i))) {
-                                String className = parser.getAttributeValue(i);
-                                logger.info("Manifest class found: {}", className);
-                                classNames.add(className.replace(".", "/") + ".class");
-                            }
-                        }
-                    }
-                }
-                eventType = parser.next();
+                // Raw entry bytes through jadx's zip reader, which copes with malformed packer zips,
+                //  but without running jadx's resource decoding
+                byte[] manifest = ResourcesLoader.decodeStream(resource, (size, is) -> is.readAllBytes());
+                BinaryManifestParser.parse(manifest, (tag, className) -> {
+                    logger.info("Manifest class found: {}", className);
+                    classNames.add(className.replace(".", "/") + ".class");
+                });
+                return classNames;
             }
         }
 
-        return classNames;
+        // Every class would look unpacked against an empty manifest
+        throw new IOException("No AndroidManifest.xml in " + apkFilePath);
     }
 
     public static Set<String> getDexClasses(String apkFilePath, JadxDecompiler jadx) throws Exception {
@@ -0,0 +1,154 @@
+package com.lauriewired.analyzer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+
+/*
+ * Aho-Corasick automaton that finds every keyword in a single pass over the text
+ * Keywords are plain ASCII identifiers so the automaton is a full DFA over the ASCII range,
+ *  any other character just sends us back to the root
+ */
+public class KeywordScanner {
+    private static final int ALPHABET_SIZE = 128;
+
+    private final String[] keywords;
+    private final int[][] transitions;
+    private final int[][] outputs;
+
+    public KeywordScanner(Collection<String> keywords) {
+        this.keywords = keywords.toArray(new String[0]);
+
+        // Build the trie
+        List<int[]> gotoTable = new ArrayList<>();
+        List<List<Integer>> outputTable = new ArrayList<>();
+        gotoTable.add(newState());
+        outputTable.add(new ArrayList<>());
+
+        for (int k = 0; k < this.keywords.length; k++) {
+            String keyword = this.keywords[k];
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if (c >= ALPHABET_SIZE) {
+                    throw new IllegalArgumentException("Only ASCII keywords are supported: " + keyword);
+                }
+                if (gotoTable.get(state)[c] == -1) {
+                    gotoTable.get(state)[c] = gotoTable.size();
+                    gotoTable.add(newState());
+                    outputTable.add(new ArrayList<>());
+                }
+                state = gotoTable.get(state)[c];
+            }
+            outputTable.get(state).add(k);
+        }
+
+        // Resolve failure links breadth first so every missing transition points at the longest suffix state
+        int[] failure = new int[gotoTable.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+        int[] root = gotoTable.get(0);
+        for (int c = 0; c < ALPHABET_SIZE; c++) {
+            if (root[c] == -1) {
+                root[c] = 0;
+            } else {
+                failure[root[c]] = 0;
+                queue.add(root[c]);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] row = gotoTable.get(state);
+            outputTable.get(state).addAll(outputTable.get(failure[state]));
+
+            for (int c = 0; c < ALPHABET_SIZE; c++) {
+                int next = row[c];
+                if (next == -1) {
+                    row[c] = gotoTable.get(failure[state])[c];
+                } else {
+                    failure[next] = gotoTable.get(failure[state])[c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        this.transitions = gotoTable.toArray(new int[0][]);
+        this.outputs = new int[outputTable.size()][];
+        for (int i = 0; i < outputTable.size(); i++) {
+            this.outputs[i] = outputTable.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static int[] newState() {
+        int[] row = new int[ALPHABET_SIZE];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    // Returns the keywords found in the text, in the order they were given to the scanner
+    public List<String> findAll(CharSequence text) {
+        boolean[] found = new boolean[keywords.length];
+        int remaining = keywords.length;
+        int state = 0;
+
+        for (int i = 0; i < text.length() && remaining > 0; i++) {
+            char c = text.charAt(i);
+            state = c < ALPHABET_SIZE ? transitions[state][c] : 0;
+            remaining -= markFound(state, found);
+        }
+
+        return collectFound(found);
+    }
+
+    // Scans UTF-8 bytes directly, multi-byte sequences are never part of an ASCII keyword
+    public List<String> findAll(ByteBuffer utf8Text) {
+        boolean[] found = new boolean[keywords.length];
+        int remaining = keywords.length;
+        int state = 0;
+
+        for (int i = utf8Text.position(); i < utf8Text.limit() && remaining > 0; i++) {
+            int b = utf8Text.get(i);
+            state = b >= 0 ? transitions[state][b] : 0;
+            remaining -= markFound(state, found);
+        }
+
+        return collectFound(found);
+    }
+
+    private int markFound(int state, boolean[] found) {
+        int newlyFound = 0;
+        for (int keywordIndex : outputs[state]) {
+            if (!found[keywordIndex]) {
+                found[keywordIndex] = true;
+                newlyFound++;
+            }
+        }
+        return newlyFound;
+    }
+
+    private List<String> collectFound(boolean[] found) {
+        List<String> matches = new ArrayList<>();
+        for (int k = 0; k < keywords.length; k++) {
+            if (found[k]) {
+                matches.add(keywords[k]);
+            }
+        }
+        return matches;
+    }
+
+    public boolean containsAny(CharSequence text) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            state = c < ALPHABET_SIZE ? transitions[state][c] : 0;
+            if (outputs[state].length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
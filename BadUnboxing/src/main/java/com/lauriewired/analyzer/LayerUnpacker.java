@@ -0,0 +1,267 @@
+package com.lauriewired.analyzer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Peels multi-stage packers: runs a layer's generated unpacker, picks the payloads it dropped by their magic
+ *  bytes and triages each one as the next layer, then does the same with the unpackers generated for those
+ * Goes one depth at a time, every layer of a depth is run and triaged in parallel, and a payload
+ *  is only analyzed the first time its SHA-256 shows up in the run
+ * Unpackers run supervised in their own JVM (UnpackerWatchdog), but this still executes the sample
+ */
+public class LayerUnpacker {
+    private static final Logger logger = LoggerFactory.getLogger(LayerUnpacker.class);
+
+    // Payloads are copied here inside the project that dropped them, outside src so they never get compiled
+    private static final String LAYERS_DIR = "layers";
+    private static final String RUN_LOG = "unpacker_output.txt";
+
+    private static final byte[] DEX_MAGIC = { 'd', 'e', 'x', '\n' };
+    private static final byte[] ZIP_MAGIC = { 'P', 'K', 3, 4 };
+
+    public enum PayloadType {
+        DEX(".dex"),
+        JAR(".jar"),
+        APK(".apk");
+
+        private final String extension;
+
+        PayloadType(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    public static class Layer {
+        private final File file;
+        private final String sha256;
+        private final int depth;
+        private final Layer parent;
+        private final TriageResult result;
+        private volatile UnpackerWatchdog.Outcome outcome;
+
+        private Layer(File file, String sha256, int depth, Layer parent, TriageResult result) {
+            this.file = file;
+            this.sha256 = sha256;
+            this.depth = depth;
+            this.parent = parent;
+            this.result = result;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        // The APK is depth 0
+        public int getDepth() {
+            return depth;
+        }
+
+        // Null for the APK
+        public Layer getParent() {
+            return parent;
+        }
+
+        public TriageResult getResult() {
+            return result;
+        }
+
+        // Null when this layer's unpacker wasn't run
+        public UnpackerWatchdog.Outcome getOutcome() {
+            return outcome;
+        }
+    }
+
+    // What a layer's unpacker dropped, before it's known whether it's new
+    private static class Drop {
+        private final Layer parent;
+        private final File file;
+        private final PayloadType type;
+        private final String sha256;
+
+        private Drop(Layer parent, File file, PayloadType type, String sha256) {
+            this.parent = parent;
+            this.file = file;
+            this.type = type;
+            this.sha256 = sha256;
+        }
+    }
+
+    /*
+     * rootResult is the APK's triage, its unpacker is the first one run
+     * Returns every layer found, depth by depth with the APK first. Layers at maxDepth are triaged but not run
+     */
+    public static List<Layer> unpack(TriageResult rootResult, DynamicDexLoaderDetection.DetectionMode detectionMode,
+                                     int maxDepth, int workers, ExecutionLimits limits) throws IOException, InterruptedException {
+        File apkFile = new File(rootResult.getApkFilePath());
+        Layer root = new Layer(apkFile, DecompilationCache.sha256(apkFile), 0, null, rootResult);
+        Set<String> seenHashes = new HashSet<>();
+        seenHashes.add(root.sha256);
+
+        List<Layer> layers = new ArrayList<>();
+        layers.add(root);
+        List<Layer> depth = Collections.singletonList(root);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            while (!depth.isEmpty() && depth.get(0).depth < maxDepth) {
+                List<Callable<List<Drop>>> runs = new ArrayList<>();
+                for (Layer layer : depth) {
+                    runs.add(() -> runLayer(layer, limits));
+                }
+                List<Drop> drops = collect(executor.invokeAll(runs));
+
+                // Deduplicated in drop order, so the same run always keeps the same copy
+                List<Callable<List<Layer>>> triages = new ArrayList<>();
+                for (Drop drop : drops) {
+                    if (seenHashes.add(drop.sha256)) {
+                        triages.add(() -> triageDrop(drop, detectionMode));
+                    } else {
+                        logger.info("Skipping {}, already seen as another layer", drop.file);
+                    }
+                }
+                depth = collect(executor.invokeAll(triages));
+                layers.addAll(depth);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        logger.info("Found {} layers under {}", layers.size() - 1, apkFile.getName());
+        return layers;
+    }
+
+    // A layer that failed is logged and skipped, the others go on
+    private static <T> List<T> collect(List<Future<List<T>>> futures) throws InterruptedException {
+        List<T> all = new ArrayList<>();
+        for (Future<List<T>> future : futures) {
+            try {
+                all.addAll(future.get());
+            } catch (ExecutionException e) {
+                logger.error("Error unpacking layer", e.getCause());
+            }
+        }
+        return all;
+    }
+
+    // Payloads are picked up even when the run failed, packers often crash on missing Android APIs after the drop
+    private static List<Drop> runLayer(Layer layer, ExecutionLimits limits) throws IOException {
+        ApkAnalysisDetails details = layer.result.getAnalysisDetails();
+        if (layer.result.getVerdict() != TriageResult.Verdict.JAVA_LOADER || details == null
+                || details.getBaseDir() == null || details.getFullyQualifiedClassName().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        File baseDir = details.getBaseDir();
+        try (PrintStream console = new PrintStream(new FileOutputStream(new File(baseDir, RUN_LOG)), true)) {
+            UnpackerRunner runner = new UnpackerRunner(new File(baseDir, "src"));
+            if (!runner.compile(console)) {
+                logger.warn("Unpacker for {} doesn't compile, see {}", layer.file.getName(), RUN_LOG);
+                return Collections.emptyList();
+            }
+            layer.outcome = runner.runSupervised(details.getFullyQualifiedClassName(), new UnpackerWatchdog(limits), console);
+        }
+
+        List<Drop> drops = new ArrayList<>();
+        File layersDir = new File(baseDir, LAYERS_DIR);
+        try (Stream<Path> paths = Files.walk(baseDir.toPath())) {
+            for (Path path : paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                if (path.startsWith(layersDir.toPath()) || path.toString().endsWith(".java")) {
+                    continue;
+                }
+                PayloadType type = detectPayload(path.toFile());
+                if (type != null) {
+                    logger.info("Layer {} dropped {} payload {}", layer.depth, type, path);
+                    drops.add(new Drop(layer, path.toFile(), type, DecompilationCache.sha256(path.toFile())));
+                }
+            }
+        }
+        return drops;
+    }
+
+    // Copied out of where it was dropped, so the next run of the parent can't change it under us
+    private static List<Layer> triageDrop(Drop drop, DynamicDexLoaderDetection.DetectionMode detectionMode) throws IOException {
+        File layerDir = new File(new File(drop.parent.result.getAnalysisDetails().getBaseDir(), LAYERS_DIR), drop.sha256.substring(0, 16));
+        layerDir.mkdirs();
+        File payload = new File(layerDir, getPayloadName(drop.file, drop.type));
+        Files.copy(drop.file.toPath(), payload.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        TriageResult result = ApkTriage.triageLayer(payload.getAbsolutePath(), drop.parent.result.getPackedClasses(), detectionMode);
+        logger.info("Layer {} {}: {}", drop.parent.depth + 1, payload.getName(), result.getVerdict());
+        return Collections.singletonList(new Layer(payload, drop.sha256, drop.parent.depth + 1, drop.parent, result));
+    }
+
+    // The name ends up in the generated unpacker's class name, so only keep what's valid in an identifier
+    private static String getPayloadName(File file, PayloadType type) {
+        String name = file.getName();
+        int dotIndex = name.lastIndexOf('.');
+        String baseName = (dotIndex <= 0 ? name : name.substring(0, dotIndex)).replaceAll("[^A-Za-z0-9_]", "_");
+        return (baseName.isEmpty() ? "payload" : baseName) + type.extension;
+    }
+
+    // Null when the file isn't something jadx can load, zips only count when they carry dex files
+    public static PayloadType detectPayload(File file) {
+        byte[] header = new byte[DEX_MAGIC.length];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            if (in.readNBytes(header, 0, header.length) < header.length) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+
+        if (Arrays.equals(header, DEX_MAGIC)) {
+            return PayloadType.DEX;
+        }
+        if (!Arrays.equals(header, ZIP_MAGIC)) {
+            return null;
+        }
+
+        try (ZipFile zip = new ZipFile(file)) {
+            boolean hasDex = false;
+            boolean hasManifest = false;
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                hasDex |= name.endsWith(".dex");
+                hasManifest |= name.equals("AndroidManifest.xml");
+            }
+            if (!hasDex) {
+                return null;
+            }
+            return hasManifest ? PayloadType.APK : PayloadType.JAR;
+        } catch (IOException e) {
+            logger.debug("Not a readable zip: " + file, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.lauriewired.analyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Runs a chain of line rules over code in a single pass
+ * Each rule sees the line as left by the rules before it, and everything is written to one output buffer
+ *  instead of every rule rebuilding the whole text
+ */
+public class LineRewriter {
+    public interface LineRule {
+        // Returns the line unchanged if there's nothing to do, may return several lines
+        String rewrite(String line);
+    }
+
+    private final List<LineRule> rules = new ArrayList<>();
+
+    public LineRewriter addRule(LineRule rule) {
+        rules.add(rule);
+        return this;
+    }
+
+    // Most lines don't contain the token, so they never reach the rule's regex
+    public LineRewriter addRule(String token, LineRule rule) {
+        rules.add(line -> line.contains(token) ? rule.rewrite(line) : line);
+        return this;
+    }
+
+    public void rewrite(StringBuilder code) {
+        StringBuilder output = new StringBuilder(code.length() + 1024);
+        int position = 0;
+        while (position < code.length()) {
+            int lineEnd = code.indexOf("\n", position);
+            boolean hasNewline = lineEnd != -1;
+            if (!hasNewline) {
+                lineEnd = code.length();
+            }
+
+            String line = code.substring(position, lineEnd);
+            for (LineRule rule : rules) {
+                line = rule.rewrite(line);
+            }
+            output.append(line);
+            if (hasNewline) {
+                output.append('\n');
+            }
+            position = lineEnd + 1;
+        }
+
+        code.setLength(0);
+        code.append(output);
+    }
+}
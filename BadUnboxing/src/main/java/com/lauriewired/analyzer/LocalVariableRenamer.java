@@ -0,0 +1,520 @@
+package com.lauriewired.analyzer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Renames method arguments and local variables in decompiled source without regular expressions
+ * The code is tokenized once, declarations are tracked in a stack of scopes while walking the tokens,
+ *  and the renamed code is written out in one pass at the end
+ * Only needed for code the rename pass never saw, see IdentifierRenamer.renameArgsAndVars
+ */
+public class LocalVariableRenamer {
+    private static final Logger logger = LoggerFactory.getLogger(LocalVariableRenamer.class);
+
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const", "continue",
+        "default", "do", "double", "else", "enum", "extends", "final", "finally", "float", "for", "goto", "if",
+        "implements", "import", "instanceof", "int", "interface", "long", "native", "new", "package", "private",
+        "protected", "public", "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this",
+        "throw", "throws", "transient", "try", "void", "volatile", "while", "true", "false", "null"
+    ));
+    private static final Set<String> PRIMITIVES = new HashSet<>(Arrays.asList(
+        "boolean", "byte", "char", "short", "int", "long", "float", "double"
+    ));
+    private static final Set<String> MODIFIERS = new HashSet<>(Arrays.asList(
+        "public", "protected", "private", "static", "final", "abstract", "native", "synchronized", "strictfp", "default"
+    ));
+
+    // Longest first, generics need '<' and '>' on their own so shifts are never joined
+    private static final String[] OPERATORS = {
+        "...", "->", "::", "==", "!=", "<=", ">=", "&&", "||", "++", "--", "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^="
+    };
+
+    // Looking back over type syntax is capped so odd code can't make the walk quadratic
+    private static final int MAX_LOOKBACK = 256;
+
+    private enum TokenType { IDENTIFIER, LITERAL, OPERATOR }
+
+    private static class Token {
+        final int start;
+        final int end;
+        final TokenType type;
+        final String text;
+
+        Token(int start, int end, TokenType type, String text) {
+            this.start = start;
+            this.end = end;
+            this.type = type;
+            this.text = text;
+        }
+    }
+
+    private enum ScopeKind {
+        CLASS,  // Class body, declarations here are fields
+        BLOCK,  // Method body or any block inside it
+        PARAMS, // Method parameter list, stays open for the method body
+        HEADER, // for, catch and try-with-resources headers, stay open for their block
+        LAMBDA  // Lambda parameters, stay open for the lambda body
+    }
+
+    private static class Scope {
+        final ScopeKind kind;
+        final int parenDepth;
+        String methodName;
+        Map<String, String> names;
+        boolean headerClosed;
+        boolean hasBody;
+        boolean expressionBody;
+
+        Scope(ScopeKind kind, int parenDepth) {
+            this.kind = kind;
+            this.parenDepth = parenDepth;
+        }
+
+        boolean isHeader() {
+            return kind == ScopeKind.PARAMS || kind == ScopeKind.HEADER || kind == ScopeKind.LAMBDA;
+        }
+
+        void put(String name, String newName) {
+            if (names == null) {
+                names = new HashMap<>();
+            }
+            names.put(name, newName);
+        }
+    }
+
+    private final String className;
+    private final RenameMap renameMap;
+    private final Map<String, Integer> declarationCounts = new HashMap<>();
+    private final List<Token> tokens;
+    private final int[] matchingParens;
+    private final String[] replacements;
+    private final Deque<Scope> scopes = new ArrayDeque<>();
+    private int parenDepth;
+
+    private LocalVariableRenamer(StringBuilder javaCode, String className, RenameMap renameMap) {
+        this.className = className;
+        this.renameMap = renameMap;
+        this.tokens = tokenize(javaCode);
+        this.matchingParens = matchParens(tokens);
+        this.replacements = new String[tokens.size()];
+    }
+
+    public static void rename(StringBuilder javaCode, String className, RenameMap renameMap) {
+        LocalVariableRenamer renamer = new LocalVariableRenamer(javaCode, className, renameMap);
+        renamer.resolve();
+        renamer.writeTo(javaCode);
+    }
+
+    private static List<Token> tokenize(StringBuilder code) {
+        List<Token> tokens = new ArrayList<>();
+        int length = code.length();
+        int i = 0;
+        while (i < length) {
+            char c = code.charAt(i);
+            int start = i;
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < length && code.charAt(i + 1) == '/') {
+                while (i < length && code.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && code.charAt(i + 1) == '*') {
+                int end = code.indexOf("*/", i + 2);
+                i = end == -1 ? length : end + 2;
+            } else if (c == '"' || c == '\'') {
+                i++;
+                while (i < length && code.charAt(i) != c && code.charAt(i) != '\n') {
+                    if (code.charAt(i) == '\\') {
+                        i++;
+                    }
+                    i++;
+                }
+                i = Math.min(i + 1, length);
+                tokens.add(new Token(start, i, TokenType.LITERAL, null));
+            } else if (Character.isJavaIdentifierStart(c)) {
+                while (i < length && Character.isJavaIdentifierPart(code.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(start, i, TokenType.IDENTIFIER, code.substring(start, i)));
+            } else if (Character.isDigit(c)) {
+                while (i < length && (Character.isLetterOrDigit(code.charAt(i)) || code.charAt(i) == '.' || code.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(new Token(start, i, TokenType.LITERAL, null));
+            } else {
+                String operator = matchOperator(code, i);
+                i += operator.length();
+                tokens.add(new Token(start, i, TokenType.OPERATOR, operator));
+            }
+        }
+        return tokens;
+    }
+
+    private static String matchOperator(StringBuilder code, int position) {
+        for (String operator : OPERATORS) {
+            int length = operator.length();
+            if (position + length <= code.length() && operator.charAt(0) == code.charAt(position)
+                    && operator.contentEquals(code.subSequence(position, position + length))) {
+                return operator;
+            }
+        }
+        return String.valueOf(code.charAt(position));
+    }
+
+    private static int[] matchParens(List<Token> tokens) {
+        int[] matching = new int[tokens.size()];
+        Arrays.fill(matching, -1);
+        Deque<Integer> open = new ArrayDeque<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if ("(".equals(tokens.get(i).text)) {
+                open.push(i);
+            } else if (")".equals(tokens.get(i).text) && !open.isEmpty()) {
+                int start = open.pop();
+                matching[start] = i;
+                matching[i] = start;
+            }
+        }
+        return matching;
+    }
+
+    private void resolve() {
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.type == TokenType.IDENTIFIER) {
+                visitIdentifier(i);
+            } else if (token.type == TokenType.OPERATOR) {
+                visitOperator(i);
+            }
+        }
+    }
+
+    private void visitIdentifier(int i) {
+        String name = tokens.get(i).text;
+        if (KEYWORDS.contains(name)) {
+            return;
+        }
+        Scope top = scopes.peek();
+
+        // Single parameter lambda like x -> ...
+        if (is(i + 1, "->") && !is(i - 1, "case")) {
+            Scope lambda = push(ScopeKind.LAMBDA);
+            declare(lambda, i, "var_");
+            return;
+        }
+
+        // Untyped parameters of (x, y) -> ...
+        if (top != null && top.kind == ScopeKind.LAMBDA && !top.headerClosed && parenDepth == top.parenDepth + 1
+                && (is(i + 1, ",") || is(i + 1, ")"))) {
+            declare(top, i, "var_");
+            return;
+        }
+
+        // Labels share nothing with variables, outer: and break outer; keep their name
+        if (is(i - 1, "break") || is(i - 1, "continue")
+                || (is(i + 1, ":") && (i == 0 || is(i - 1, ";") || is(i - 1, "{") || is(i - 1, "}")))) {
+            return;
+        }
+
+        if (top != null && isDeclarationContext(top) && isDeclaration(i)) {
+            if (top.kind == ScopeKind.CLASS) {
+                // A field, kept as is but it hides locals of the method around an anonymous class
+                top.put(name, name);
+            } else {
+                declare(top, i, top.kind == ScopeKind.PARAMS ? "arg_" : "var_");
+            }
+            return;
+        }
+
+        // Members and calls are never variables
+        if (!is(i - 1, ".") && !is(i - 1, "::") && !is(i - 1, "@") && !is(i + 1, "(")) {
+            String newName = lookup(name);
+            if (newName != null && !newName.equals(name)) {
+                replacements[i] = newName;
+            }
+        }
+    }
+
+    private void visitOperator(int i) {
+        Scope top = scopes.peek();
+        switch (tokens.get(i).text) {
+            case "(": {
+                ScopeKind kind = null;
+                if (top != null && top.kind == ScopeKind.CLASS && parenDepth == top.parenDepth && isMethodHeader(i)) {
+                    kind = ScopeKind.PARAMS;
+                } else if (is(i - 1, "for") || is(i - 1, "catch") || is(i - 1, "try")) {
+                    kind = ScopeKind.HEADER;
+                } else if (matchingParens[i] != -1 && is(matchingParens[i] + 1, "->")) {
+                    kind = ScopeKind.LAMBDA;
+                }
+                if (kind != null) {
+                    Scope scope = push(kind);
+                    if (kind == ScopeKind.PARAMS) {
+                        scope.methodName = tokens.get(i - 1).text;
+                    }
+                }
+                parenDepth++;
+                break;
+            }
+            case ")":
+                parenDepth--;
+                while (isExpressionLambda(scopes.peek()) && parenDepth < scopes.peek().parenDepth) {
+                    scopes.pop();
+                }
+                top = scopes.peek();
+                if (top != null && (top.kind == ScopeKind.PARAMS || top.kind == ScopeKind.HEADER)
+                        && !top.headerClosed && top.parenDepth == parenDepth) {
+                    top.headerClosed = true;
+                }
+                break;
+            case ",":
+                while (isExpressionLambda(scopes.peek()) && parenDepth == scopes.peek().parenDepth) {
+                    scopes.pop();
+                }
+                break;
+            case "->":
+                if (top != null && top.kind == ScopeKind.LAMBDA && !top.headerClosed) {
+                    top.headerClosed = true;
+                    top.expressionBody = !is(i + 1, "{");
+                }
+                break;
+            case "{":
+                if (top != null && top.isHeader() && top.headerClosed && !top.hasBody && !top.expressionBody) {
+                    top.hasBody = true;
+                    push(ScopeKind.BLOCK);
+                } else {
+                    push(isClassBody(i) ? ScopeKind.CLASS : ScopeKind.BLOCK);
+                }
+                break;
+            case "}":
+                popExpressionLambdas();
+                if (!scopes.isEmpty()) {
+                    scopes.pop();
+                }
+                // The block was the body of a method, loop or lambda, so their parameters end here too
+                while (!scopes.isEmpty() && scopes.peek().isHeader() && scopes.peek().hasBody) {
+                    scopes.pop();
+                }
+                break;
+            case ";":
+                popExpressionLambdas();
+                // Abstract methods and loops without braces
+                while (!scopes.isEmpty() && scopes.peek().isHeader() && scopes.peek().headerClosed && !scopes.peek().hasBody) {
+                    scopes.pop();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private Scope push(ScopeKind kind) {
+        Scope scope = new Scope(kind, parenDepth);
+        scopes.push(scope);
+        return scope;
+    }
+
+    private static boolean isExpressionLambda(Scope scope) {
+        return scope != null && scope.kind == ScopeKind.LAMBDA && scope.expressionBody;
+    }
+
+    private void popExpressionLambdas() {
+        while (isExpressionLambda(scopes.peek())) {
+            scopes.pop();
+        }
+    }
+
+    private void declare(Scope scope, int i, String prefix) {
+        String name = tokens.get(i).text;
+        if (name.startsWith("arg_") || name.startsWith("var_")) {
+            // Already renamed, but it still shadows anything outside
+            scope.put(name, name);
+            return;
+        }
+
+        // Keyed by the enclosing method and declaration order, the code has no signatures to go by
+        String methodKey = "code:" + className + "." + getMethodName() + "#";
+        int ordinal = declarationCounts.merge(methodKey, 1, Integer::sum);
+        String uniqueName = renameMap.nameFor(methodKey + ordinal + ":" + name, name, prefix);
+        if (prefix.equals("arg_")) {
+            logger.info("Renaming method argument {} to {}", name, uniqueName);
+        } else {
+            logger.info("Renaming local variable {} to {}", name, uniqueName);
+        }
+        scope.put(name, uniqueName);
+        replacements[i] = uniqueName;
+    }
+
+    private String getMethodName() {
+        for (Scope scope : scopes) {
+            if (scope.methodName != null) {
+                return scope.methodName;
+            }
+        }
+        return "<init>"; // Initializer blocks and field initializers
+    }
+
+    // Innermost declaration wins, walking out through enclosing methods for captured variables
+    private String lookup(String name) {
+        for (Scope scope : scopes) {
+            if (scope.names != null) {
+                String newName = scope.names.get(name);
+                if (newName != null) {
+                    return newName;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Statements in a block or class body and the inside of an open header, never call arguments,
+    //  where foo(a < b, c > d) would read as a declaration of d
+    private boolean isDeclarationContext(Scope top) {
+        if (top.kind == ScopeKind.BLOCK || top.kind == ScopeKind.CLASS) {
+            return parenDepth == top.parenDepth;
+        }
+        return !top.headerClosed && parenDepth == top.parenDepth + 1;
+    }
+
+    // A type directly followed by a name, then whatever can follow a declared variable
+    private boolean isDeclaration(int i) {
+        return (is(i + 1, "=") || is(i + 1, ";") || is(i + 1, ",") || is(i + 1, ":") || is(i + 1, ")"))
+            && isTypeEnd(i - 1);
+    }
+
+    private boolean isTypeEnd(int k) {
+        if (k < 0) {
+            return false;
+        }
+        Token token = tokens.get(k);
+        if (token.type == TokenType.IDENTIFIER) {
+            return !KEYWORDS.contains(token.text) || PRIMITIVES.contains(token.text);
+        }
+        if (is(k, "]")) {
+            return is(k - 1, "[");
+        }
+        if (is(k, ">")) {
+            return closesTypeArguments(k);
+        }
+        return is(k, "...");
+    }
+
+    // Tells List<String> apart from a comparison by what's between the brackets
+    private boolean closesTypeArguments(int k) {
+        int depth = 0;
+        for (int j = k; j >= 0 && k - j < MAX_LOOKBACK; j--) {
+            Token token = tokens.get(j);
+            if (is(j, ">")) {
+                depth++;
+            } else if (is(j, "<")) {
+                if (--depth == 0) {
+                    return j > 0 && isName(j - 1);
+                }
+            } else if (token.type == TokenType.IDENTIFIER) {
+                if (KEYWORDS.contains(token.text) && !PRIMITIVES.contains(token.text)
+                        && !token.text.equals("extends") && !token.text.equals("super")) {
+                    return false;
+                }
+            } else if (!is(j, ".") && !is(j, ",") && !is(j, "?") && !is(j, "[") && !is(j, "]") && !is(j, "&")) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // Name followed by '(' straight in a class body, after a return type, a modifier or the previous member
+    private boolean isMethodHeader(int i) {
+        if (!isName(i - 1)) {
+            return false;
+        }
+        int k = i - 2;
+        if (k < 0) {
+            return true;
+        }
+        Token before = tokens.get(k);
+        if (before.type == TokenType.IDENTIFIER) {
+            return !KEYWORDS.contains(before.text) || PRIMITIVES.contains(before.text)
+                || MODIFIERS.contains(before.text) || before.text.equals("void");
+        }
+        return is(k, ">") || is(k, "]") || is(k, "{") || is(k, "}") || is(k, ";");
+    }
+
+    // Class declarations and anonymous classes, every other brace opens a block
+    private boolean isClassBody(int i) {
+        int k = i - 1;
+        if (is(k, ")")) {
+            int open = matchingParens[k];
+            return open > 0 && followsNew(open - 1);
+        }
+
+        for (int j = k; j >= 0 && k - j < MAX_LOOKBACK; j--) {
+            Token token = tokens.get(j);
+            if (token.type == TokenType.IDENTIFIER) {
+                if (token.text.equals("class") || token.text.equals("interface") || token.text.equals("enum")) {
+                    return true;
+                }
+                if (KEYWORDS.contains(token.text) && !token.text.equals("extends") && !token.text.equals("implements")) {
+                    return false;
+                }
+            } else if (!is(j, ".") && !is(j, ",") && !is(j, "<") && !is(j, ">") && !is(j, "?") && !is(j, "&")
+                    && !is(j, "[") && !is(j, "]")) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean followsNew(int k) {
+        for (int j = k; j >= 0 && k - j < MAX_LOOKBACK; j--) {
+            Token token = tokens.get(j);
+            if (token.type == TokenType.IDENTIFIER) {
+                if (token.text.equals("new")) {
+                    return true;
+                }
+                if (KEYWORDS.contains(token.text)) {
+                    return false;
+                }
+            } else if (!is(j, ".") && !is(j, ",") && !is(j, "<") && !is(j, ">") && !is(j, "?")) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean isName(int k) {
+        return k >= 0 && k < tokens.size() && tokens.get(k).type == TokenType.IDENTIFIER && !KEYWORDS.contains(tokens.get(k).text);
+    }
+
+    private boolean is(int k, String text) {
+        return k >= 0 && k < tokens.size() && text.equals(tokens.get(k).text);
+    }
+
+    // Only the renamed tokens are replaced, everything else including comments is copied as is
+    private void writeTo(StringBuilder javaCode) {
+        StringBuilder output = new StringBuilder(javaCode.length() + 1024);
+        int position = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (replacements[i] != null) {
+                Token token = tokens.get(i);
+                output.append(javaCode, position, token.start).append(replacements[i]);
+                position = token.end;
+            }
+        }
+        output.append(javaCode, position, javaCode.length());
+
+        javaCode.setLength(0);
+        javaCode.append(output);
+    }
+}
@@ -1,21 +1,28 @@
 package com.lauriewired.analyzer;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/*
+ * Comments out reflective code, then keeps following the variables and methods that carried reflective values
+ * The code is split into lines and indexed by identifier once, so every value only visits the lines it appears on
+ */
 public class ReflectionRemover {
     private static final Logger logger = LoggerFactory.getLogger(ReflectionRemover.class);
 
-    private static Stack<String> reflectiveValues = new Stack<>();
-    private static final Set<String> analyzedValues = new HashSet<>();
-
     private static final Set<String> reflectiveKeywords = new HashSet<>(Arrays.asList(
         "getMethod",
         "invoke",
@@ -27,90 +34,219 @@ public class ReflectionRemover {
         "newInstance"
     ));
 
-    public static void removeReflection(StringBuilder javaCode) {
-
-        //System.out.println(javaCode);
-        
-        //commentOutMethodUsingReflection(javaCode, surroundWithRegex("forName"));
-
-        /*
-        commentOutLineUsingReflection(javaCode, surroundWithRegex("getDeclaredField"));
-
-        for (String method : reflectiveValues) {
-            System.out.println(method);
-        }
+    // Characters allowed around a value for it to count as a reference (the old surroundWithRegex)
+    private static final String CHARS_BEFORE_VALUE = "[]().";
+    private static final String CHARS_AFTER_VALUE = "[]().,;";
 
-        
-        //commentOutMethodUsingReflection(javaCode, "[\\s\\.\\(]it[\\s\\.\\);]");
-        //commentOutLineUsingReflection(javaCode, "[\\s\\.\\(]it[\\s\\.\\);]");
+    // Pattern to match variable names
+    private static final Pattern variablePattern = Pattern.compile("([a-zA-Z0-9_]+)\\s*=(\\s*)");
+    private static final Pattern methodPattern = Pattern.compile(".*\\s(public|private|protected|static|void)+\\s.");
+    private static final Pattern methodSignaturePattern = Pattern.compile(
+        ".*(public|protected|private|static|\\s)+\\s*\\S+\\s+(method\\S+|main|onCreate)\\(.*\\)\\s+[\\w\\s]*\\{");
 
-        //commentOutMethodUsingReflection(javaCode, "Class.forName");
-        //commentOutLineUsingReflection(javaCode, "Class.forName");
-        
+    // Works across every unit since reflective values found in one class are often used from another
+    public static void removeReflection(List<CompilationUnit> units) {
+        IndexedCode code = new IndexedCode(units);
+        Deque<String> reflectiveValues = new ArrayDeque<>();
+        Set<String> analyzedValues = new HashSet<>();
 
-        for (String method : reflectiveValues) {
-            System.out.println(method);
-        }*/
-
-        //commentOutLineUsingReflection(javaCode, surroundWithRegex("NJdYmOqBdAmAiWnWkAzIiKhNbFqSfAkTtXyRwCmMbCfNqClHu"));
-        //commentOutLineUsingReflection(javaCode, surroundWithRegex("bwyY_354421"));
-
-        
-        
         // Initial comment out of reflection
         for (String keyword : reflectiveKeywords) {
-            commentOutMethodUsingReflection(javaCode, surroundWithRegex(keyword));
+            code.commentOutMethodsUsing(keyword, reflectiveValues);
         }
         for (String keyword : reflectiveKeywords) {
-            commentOutLineUsingReflection(javaCode, surroundWithRegex(keyword));
+            code.commentOutLinesUsing(keyword, reflectiveValues);
         }
 
-        // Add while loop here to keep iterating through reflectiveMethods and reflectiveVariables while they have values
+        // Keep iterating through reflective methods and variables while they have values
         while (!reflectiveValues.isEmpty()) {
             String value = reflectiveValues.pop();
-            if (!analyzedValues.contains(value)) {
-                commentOutMethodUsingReflection(javaCode, surroundWithRegex(value));
-                commentOutLineUsingReflection(javaCode, surroundWithRegex(value));
-                analyzedValues.add(value);
+            if (analyzedValues.add(value)) {
+                code.commentOutMethodsUsing(value, reflectiveValues);
+                code.commentOutLinesUsing(value, reflectiveValues);
             }
         }
+
+        code.writeBack();
     }
 
-    private static String surroundWithRegex(String value) {
-        return "[\\[\\]\\s\\.\\(\\)]" + value + "[\\[\\]\\s\\.\\(\\),;]";
+    private static class Method {
+        final int start;
+        final int end;
+        final String name;
+        boolean commentedOut;
+
+        Method(int start, int end, String name) {
+            this.start = start;
+            this.end = end;
+            this.name = name;
+        }
     }
 
-    public static void commentOutLineUsingReflection(StringBuilder javaCode, String keywordRegex) {
-        // Compile the keyword as a regex pattern
-        Pattern keywordPattern = Pattern.compile(keywordRegex);
+    /*
+     * Lines of every unit, which method each line belongs to, and where each identifier is referenced
+     * Lines only ever get commented out, so the index built up front stays valid
+     */
+    private static class IndexedCode {
+        private final List<CompilationUnit> units;
+        private final int[] unitStarts;
+        private final List<String> lines = new ArrayList<>();
+        private final List<String> appendedLines = new ArrayList<>();
+        private final boolean[] changedUnits;
+
+        private final List<Method> methods = new ArrayList<>();
+        private int[] methodOfLine;
+        private final Map<String, List<Integer>> references = new HashMap<>();
+
+        IndexedCode(List<CompilationUnit> units) {
+            this.units = units;
+            this.unitStarts = new int[units.size() + 1];
+            this.changedUnits = new boolean[units.size()];
+
+            for (int u = 0; u < units.size(); u++) {
+                unitStarts[u] = lines.size();
+                for (String line : units.get(u).getBody().toString().split("\n", -1)) {
+                    lines.add(line);
+                    appendedLines.add(null);
+                }
+            }
+            unitStarts[units.size()] = lines.size();
+
+            methodOfLine = new int[lines.size()];
+            Arrays.fill(methodOfLine, -1);
+            for (int u = 0; u < units.size(); u++) {
+                indexMethods(unitStarts[u], unitStarts[u + 1]);
+            }
+            for (int i = 0; i < lines.size(); i++) {
+                indexReferences(i);
+            }
+        }
+
+        private void indexMethods(int from, int to) {
+            for (int i = from; i < to; i++) {
+                String trimmed = lines.get(i).trim();
+                // The signature regex backtracks a lot, most lines can be skipped without it
+                if (!trimmed.endsWith("{") || trimmed.startsWith("//") || !methodSignaturePattern.matcher(trimmed).matches()) {
+                    continue;
+                }
 
-        // Split the code into lines
-        String[] lines = javaCode.toString().split("\n");
-        StringBuilder modifiedCode = new StringBuilder();
+                // Keep up with our braces to keep track of the method length
+                int braceDepth = 1;
+                int end = i + 1;
+                for (; end < to; end++) {
+                    String line = lines.get(end);
+                    for (int c = 0; c < line.length(); c++) {
+                        if (line.charAt(c) == '{') {
+                            braceDepth++;
+                        } else if (line.charAt(c) == '}') {
+                            braceDepth--;
+                        }
+                    }
+                    if (braceDepth == 0) {
+                        break;
+                    }
+                }
+                if (braceDepth != 0) {
+                    continue; // Unbalanced, leave it alone
+                }
 
-        // Pattern to match variable names
-        Pattern variablePattern = Pattern.compile("([a-zA-Z0-9_]+)\\s*=(\\s*)");
-        Pattern methodPattern = Pattern.compile(".*\\s(public|private|protected|static|void)+\\s.");
+                // Methods are found in order of their start, so nested ones overwrite the lines of their parent
+                int methodIndex = methods.size();
+                methods.add(new Method(i, end, parseMethodName(trimmed)));
+                for (int line = i; line <= end; line++) {
+                    methodOfLine[line] = methodIndex;
+                }
+            }
+        }
 
-        // Iterate over each line
-        for (String line : lines) {
-            Matcher keywordMatcher = keywordPattern.matcher(line);
-            Matcher methodMatch = methodPattern.matcher(line);
+        private void indexReferences(int lineIndex) {
+            String line = lines.get(lineIndex);
+            int i = 0;
+            while (i < line.length()) {
+                if (!isIdentifierChar(line.charAt(i))) {
+                    i++;
+                    continue;
+                }
+
+                int start = i;
+                while (i < line.length() && isIdentifierChar(line.charAt(i))) {
+                    i++;
+                }
+                if (start > 0 && i < line.length()
+                        && isValueBoundary(line.charAt(start - 1), CHARS_BEFORE_VALUE)
+                        && isValueBoundary(line.charAt(i), CHARS_AFTER_VALUE)) {
+                    List<Integer> lineRefs = references.computeIfAbsent(line.substring(start, i), k -> new ArrayList<>());
+                    if (lineRefs.isEmpty() || lineRefs.get(lineRefs.size() - 1) != lineIndex) {
+                        lineRefs.add(lineIndex);
+                    }
+                }
+            }
+        }
 
-            if (keywordMatcher.find() && !methodMatch.find() && !line.trim().startsWith("//") && !line.trim().startsWith("import")) {
-                // Check if the reflective call is on the right of an equal sign
+        private static boolean isIdentifierChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+        }
+
+        private static boolean isValueBoundary(char c, String allowed) {
+            return Character.isWhitespace(c) || allowed.indexOf(c) != -1;
+        }
+
+        private List<Integer> referencesTo(String value) {
+            return references.getOrDefault(value, Collections.emptyList());
+        }
+
+        private boolean isCommentedOut(int lineIndex) {
+            return lines.get(lineIndex).trim().startsWith("//");
+        }
+
+        // Methods that return something using the value are removed entirely
+        void commentOutMethodsUsing(String value, Deque<String> reflectiveValues) {
+            for (int lineIndex : referencesTo(value)) {
+                int methodIndex = methodOfLine[lineIndex];
+                if (methodIndex == -1 || isCommentedOut(lineIndex) || !lines.get(lineIndex).trim().startsWith("return")) {
+                    continue;
+                }
+
+                Method method = methods.get(methodIndex);
+                if (method.commentedOut || isCommentedOut(method.start)) {
+                    continue;
+                }
+
+                for (int i = method.start; i <= method.end; i++) {
+                    lines.set(i, "// BadUnboxing " + lines.get(i));
+                    if (appendedLines.get(i) != null) {
+                        // Placeholders from commented out lines go too, or the braces won't match
+                        appendedLines.set(i, "// BadUnboxing " + appendedLines.get(i).replace("\n", "\n// BadUnboxing "));
+                    }
+                }
+                appendLine(method.end, "// BadUnboxing: Method contains reflection in return statement and was commented out\n");
+                method.commentedOut = true;
+                markChanged(method.start);
+
+                reflectiveValues.push(method.name);
+                logger.info("Removing reflective method: " + method.name);
+            }
+        }
+
+        void commentOutLinesUsing(String value, Deque<String> reflectiveValues) {
+            for (int lineIndex : referencesTo(value)) {
+                String line = lines.get(lineIndex);
+                if (isCommentedOut(lineIndex) || line.trim().startsWith("import") || methodPattern.matcher(line).find()) {
+                    continue;
+                }
+
+                // Anything the reflective call gets assigned to is reflective too
                 Matcher matcher = variablePattern.matcher(line);
                 if (matcher.find()) {
-                    if (!matcher.group(2).matches(".*" + keywordRegex + ".*")) {
-                        // Parse out the variable name
-                        String variableName = matcher.group(1);
-                        reflectiveValues.push(variableName);
+                    String variableName = matcher.group(1);
+                    reflectiveValues.push(variableName);
 
-                        logger.info("Found reflective variable: " + variableName);
-                    }
+                    logger.info("Found reflective variable: " + variableName);
                 }
-                // Comment out the line if it contains the keyword and is not already commented out
-                modifiedCode.append("// ").append(line).append(" // BadUnboxing: Line contains reflection and was commented out\n");
+
+                // Comment out the line if it contains the value and is not already commented out
+                lines.set(lineIndex, "// " + line + " // BadUnboxing: Line contains reflection and was commented out");
+                markChanged(lineIndex);
 
                 // Don't be too noisy so print up to the first 30 chars of the line
                 String logLine = line.replaceFirst("^\\s+", "");
@@ -118,79 +254,42 @@ public class ReflectionRemover {
 
                 // If the line ends with an opening brace, add "if (true) {"
                 if (line.trim().endsWith("{")) {
-                    modifiedCode.append("if (true) {\n"); // We just need a dummy placeholder
+                    appendLine(lineIndex, "if (true) {"); // We just need a dummy placeholder
                 }
-            } else {
-                modifiedCode.append(line).append("\n");
             }
         }
 
-        // Replace the original code with the modified code
-        javaCode.setLength(0);
-        javaCode.append(modifiedCode);
-    }
+        private void appendLine(int lineIndex, String text) {
+            String existing = appendedLines.get(lineIndex);
+            appendedLines.set(lineIndex, existing == null ? text : existing + "\n" + text);
+        }
 
-    // omg it works. never change this
-    public static void commentOutMethodUsingReflection(StringBuilder javaCode, String keywordRegex) {
-        // Compile the keyword as a regex pattern
-        Pattern keywordPattern = Pattern.compile(keywordRegex);
-
-        // Split the code into lines
-        String[] lines = javaCode.toString().split("\n");
-        StringBuilder modifiedCode = new StringBuilder();
-
-        boolean returnContainsReflection = false;
-        StringBuilder currentMethod = new StringBuilder();
-        String currentMethodName = null;
-        int braceDepth = -1;
-
-        for (String line : lines) {
-            if (line.trim().matches(".*(public|protected|private|static|\\s)+\\s*\\S+\\s+(method\\S+|main|onCreate)\\(.*\\)\\s+[\\w\\s]*\\{") && !line.trim().startsWith("//")) {
-                // New method start
-                currentMethod.setLength(0);
-                returnContainsReflection = false;
-                currentMethodName = parseMethodName(line);
-                currentMethod.append(line).append("\n");
-
-                braceDepth = 1;
-            } else if (braceDepth == 0) {
-                // This means we've finished a method
-                if (returnContainsReflection) {
-                    commentOutMethod(currentMethod, modifiedCode);
-                    reflectiveValues.push(currentMethodName);
-                    logger.info("Removing reflective method: " + currentMethodName);
-                } else {
-                    modifiedCode.append(currentMethod).append("\n");
-                }
-
-                // Still need to handle the latest line
-                modifiedCode.append(line);
-
-                braceDepth = -1; // Reset for new method
-            } else if (braceDepth > 0) {
-                // Keep up with our braces to keep track of the method length
-                for (int i = 0; i < line.length(); i++) {
-                    if (line.charAt(i) == '{') {
-                        braceDepth++;
-                    } else if (line.charAt(i) == '}') {
-                        braceDepth--;
-                    }
+        private void markChanged(int lineIndex) {
+            // Every unit has at least one line, so the starts are strictly increasing
+            int unit = Arrays.binarySearch(unitStarts, lineIndex);
+            changedUnits[unit >= 0 ? unit : -unit - 2] = true;
+        }
+
+        // Only units that had something commented out are rebuilt
+        void writeBack() {
+            for (int u = 0; u < units.size(); u++) {
+                if (!changedUnits[u]) {
+                    continue;
                 }
 
-                // Check if the line is a return statement and contains the keyword
-                Matcher keywordMatcher = keywordPattern.matcher(line);
-                if (line.trim().startsWith("return") && keywordMatcher.find() && !line.trim().startsWith("//")) {
-                    returnContainsReflection = true;
+                StringBuilder body = units.get(u).getBody();
+                body.setLength(0);
+                for (int i = unitStarts[u]; i < unitStarts[u + 1]; i++) {
+                    if (i > unitStarts[u]) {
+                        body.append('\n');
+                    }
+                    body.append(lines.get(i));
+                    if (appendedLines.get(i) != null) {
+                        body.append('\n').append(appendedLines.get(i));
+                    }
                 }
-                currentMethod.append(line).append("\n");
-            } else {
-                modifiedCode.append(line).append("\n");
             }
         }
-
-        // Replace the original code with the modified code
-        javaCode.setLength(0);
-        javaCode.append(modifiedCode);
     }
 
     private static String parseMethodName(String line) {
@@ -199,12 +298,4 @@ public class ReflectionRemover {
         String[] parts = methodSignature.split("\\s+");
         return parts[parts.length - 1];
     }
-
-    private static void commentOutMethod(StringBuilder methodCode, StringBuilder modifiedCode) {
-        String[] lines = methodCode.toString().split("\n");
-        for (String line : lines) {
-            modifiedCode.append("// BadUnboxing ").append(line).append("\n");
-        }
-        modifiedCode.append("// BadUnboxing: Method contains reflection in return statement and was commented out\n\n");
-    }
-}
\ No newline at end of file
+}
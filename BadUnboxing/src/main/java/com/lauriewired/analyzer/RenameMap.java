@@ -0,0 +1,148 @@
+package com.lauriewired.analyzer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Every name the renamers hand out, keyed by what the identifier was (class, member signature, ordinal)
+ * Names are derived from the key alone, so the same sample always produces the same project and sibling
+ *  samples share names for everything they have in common
+ * The map is saved with the generated project and loaded again on the next run, so names also survive
+ *  changes to how keys are built. badunboxing.renamemap points every run at one shared map instead
+ */
+public class RenameMap {
+    private static final Logger logger = LoggerFactory.getLogger(RenameMap.class);
+
+    private static final int POSTFIX_LENGTH = 8;
+    private static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final String FILE_NAME = "rename_map.txt";
+    private static final String SHARED_MAP = System.getProperty("badunboxing.renamemap");
+
+    private static final Map<Path, Object> FILE_LOCKS = new ConcurrentHashMap<>();
+
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+    private final Set<String> usedNames = ConcurrentHashMap.newKeySet();
+
+    public static File getFile(File projectDir) {
+        return SHARED_MAP != null ? new File(SHARED_MAP) : new File(projectDir, FILE_NAME);
+    }
+
+    // Safe to call from parallel renamers, a key always gets the name it got first
+    public String nameFor(String key, String originalName, String prefix) {
+        String existing = names.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        // Only postfix collisions retry, and the retries are derived from the key as well
+        String uniqueName;
+        int attempt = 0;
+        do {
+            uniqueName = prefix + originalName + "_" + stablePostfix(attempt == 0 ? key : key + "#" + attempt);
+            attempt++;
+        } while (!usedNames.add(uniqueName));
+
+        String previous = names.putIfAbsent(key, uniqueName);
+        return previous != null ? previous : uniqueName;
+    }
+
+    public static String stablePostfix(String key) {
+        byte[] digest = newDigest().digest(key.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder(POSTFIX_LENGTH);
+        for (int i = 0; i < POSTFIX_LENGTH; i++) {
+            sb.append(CHARACTERS.charAt((digest[i] & 0xff) % CHARACTERS.length()));
+        }
+        return sb.toString();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // One "key<TAB>name" per line, anything else is skipped
+    public void load(File file) {
+        if (!file.isFile()) {
+            return;
+        }
+
+        try {
+            Map<String, String> loaded = read(file);
+            names.putAll(loaded);
+            usedNames.addAll(loaded.values());
+            logger.info("Loaded {} names from {}", loaded.size(), file.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warn("Error reading rename map " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private static Map<String, String> read(File file) throws IOException {
+        Map<String, String> entries = new TreeMap<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab > 0 && tab < line.length() - 1) {
+                entries.put(line.substring(0, tab), line.substring(tab + 1));
+            }
+        }
+        return entries;
+    }
+
+    /*
+     * Merged with what's on disk, a shared map is saved by every sample of the family and none of them
+     *  may lose the others' names. Where both have a key ours wins, this project's code already uses it
+     * Sorted so the same names always give the same file, and moved into place so readers never see half of it
+     */
+    public void save(File file) {
+        File dir = file.getAbsoluteFile().getParentFile();
+        dir.mkdirs();
+
+        // File locks are per process, threads of this one queue up here first
+        Object fileLock = FILE_LOCKS.computeIfAbsent(file.getAbsoluteFile().toPath().normalize(), path -> new Object());
+        synchronized (fileLock) {
+            try (FileChannel lockChannel = FileChannel.open(new File(dir, file.getName() + ".lock").toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock lock = lockChannel.lock()) {
+                Map<String, String> merged = file.isFile() ? read(file) : new TreeMap<>();
+                merged.putAll(names);
+
+                File tempFile = File.createTempFile(file.getName(), ".tmp", dir);
+                try {
+                    try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                        for (Map.Entry<String, String> entry : merged.entrySet()) {
+                            writer.write(entry.getKey());
+                            writer.write('\t');
+                            writer.write(entry.getValue());
+                            writer.write('\n');
+                        }
+                    }
+                    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    tempFile.delete();
+                }
+                logger.info("Saved {} names to {}", merged.size(), file.getAbsolutePath());
+            } catch (IOException e) {
+                logger.warn("Error writing rename map " + file.getAbsolutePath(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.lauriewired.analyzer;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/*
+ * Rewrites Android API usage in a generated class into something that runs on a desktop JVM
+ * Rules are only run on classes that have one of their triggers, so adding rules for another packer
+ *  costs nothing for classes that don't use what they target
+ * Besides the built-in rules, implementations listed in META-INF/services/com.lauriewired.analyzer.RewriteRule
+ *  on the classpath are picked up, they need a public no-argument constructor
+ * Rules are shared by every class and session, so they can't keep state and should precompile their patterns
+ */
+public interface RewriteRule {
+    // Fully qualified class names, e.g. "android.os.Build"
+    Collection<String> getTriggerImports();
+
+    // Plain ASCII strings that make the rule run when they appear in the code, whatever the class imports
+    default Collection<String> getTriggerTokens() {
+        return Collections.emptyList();
+    }
+
+    void apply(CompilationUnit unit, AnalysisSession session);
+}
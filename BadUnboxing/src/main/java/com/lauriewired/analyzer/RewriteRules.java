@@ -0,0 +1,105 @@
+package com.lauriewired.analyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lauriewired.analyzer.rules.ApplicationInfoRule;
+import com.lauriewired.analyzer.rules.ArrayMapRule;
+import com.lauriewired.analyzer.rules.BuildRule;
+import com.lauriewired.analyzer.rules.DexClassLoaderRule;
+
+/*
+ * Every rewrite rule, indexed by trigger so a class only visits the rules it can use
+ * Loaded once per JVM, the built-in rules first and then whatever ServiceLoader finds
+ * Imports are looked up in a map and all trigger tokens are found in one scan of the code
+ */
+public class RewriteRules {
+    private static final Logger logger = LoggerFactory.getLogger(RewriteRules.class);
+
+    private static final Set<String> androidOnlyPackages = new HashSet<>(Arrays.asList(
+        "android",
+        "dalvik"
+    ));
+
+    // We process these on all code no matter what, so they don't need rules
+    private static final Set<String> alwaysProcessedImports = new HashSet<>(Arrays.asList(
+        "android.app.Application",
+        "android.content.Context"
+    ));
+
+    private static final RewriteRules instance = new RewriteRules(loadRules());
+
+    private final List<RewriteRule> rules;
+    private final Map<String, List<Integer>> rulesByImport = new HashMap<>();
+    private final Map<String, List<Integer>> rulesByToken = new HashMap<>();
+    private final KeywordScanner tokenScanner;
+
+    private RewriteRules(List<RewriteRule> rules) {
+        this.rules = rules;
+        for (int i = 0; i < rules.size(); i++) {
+            for (String importClass : rules.get(i).getTriggerImports()) {
+                rulesByImport.computeIfAbsent(importClass, k -> new ArrayList<>()).add(i);
+            }
+            for (String token : rules.get(i).getTriggerTokens()) {
+                rulesByToken.computeIfAbsent(token, k -> new ArrayList<>()).add(i);
+            }
+        }
+        this.tokenScanner = rulesByToken.isEmpty() ? null : new KeywordScanner(rulesByToken.keySet());
+    }
+
+    public static RewriteRules getInstance() {
+        return instance;
+    }
+
+    private static List<RewriteRule> loadRules() {
+        List<RewriteRule> rules = new ArrayList<>(Arrays.asList(
+            new DexClassLoaderRule(),
+            new BuildRule(),
+            new ApplicationInfoRule(),
+            new ArrayMapRule()
+        ));
+
+        for (RewriteRule rule : ServiceLoader.load(RewriteRule.class)) {
+            logger.info("Loaded rewrite rule {}", rule.getClass().getName());
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    // Each triggered rule runs once, in the order the rules were loaded
+    public void apply(CompilationUnit unit, AnalysisSession session) {
+        BitSet triggered = new BitSet(rules.size());
+
+        for (String importStatement : unit.getImports()) {
+            String importClass = importStatement.replaceFirst("import\\s+(static\\s+)?", "").replace(";", "").trim();
+            List<Integer> importRules = rulesByImport.get(importClass);
+            if (importRules != null) {
+                importRules.forEach(triggered::set);
+            } else if (androidOnlyPackages.contains(importClass.split("\\.")[0]) && !alwaysProcessedImports.contains(importClass)) {
+                logger.error("Unknown android import: " + importClass);
+            }
+        }
+
+        if (tokenScanner != null) {
+            for (String token : tokenScanner.findAll(unit.getBody())) {
+                rulesByToken.get(token).forEach(triggered::set);
+            }
+        }
+
+        for (int i = triggered.nextSetBit(0); i >= 0; i = triggered.nextSetBit(i + 1)) {
+            RewriteRule rule = rules.get(i);
+            logger.info("Processing {} with {}", unit.getClassName(), rule.getClass().getSimpleName());
+            rule.apply(unit, session);
+        }
+    }
+}
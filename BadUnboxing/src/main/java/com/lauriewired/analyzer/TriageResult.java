@@ -0,0 +1,78 @@
+package com.lauriewired.analyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TriageResult {
+    public enum Verdict {
+        NOT_PACKED,
+        JAVA_LOADER,
+        NATIVE_LOADER,
+        ERROR
+    }
+
+    private final String apkFilePath;
+    private Verdict verdict = Verdict.ERROR;
+    private List<String> packedClasses = new ArrayList<>();
+    private List<String> dexLoadingDetails = new ArrayList<>();
+    private ApkAnalysisDetails analysisDetails;
+    private String error;
+    private long elapsedMillis;
+
+    public TriageResult(String apkFilePath) {
+        this.apkFilePath = apkFilePath;
+    }
+
+    public String getApkFilePath() {
+        return apkFilePath;
+    }
+
+    public Verdict getVerdict() {
+        return verdict;
+    }
+
+    void setVerdict(Verdict verdict) {
+        this.verdict = verdict;
+    }
+
+    public List<String> getPackedClasses() {
+        return packedClasses;
+    }
+
+    void setPackedClasses(List<String> packedClasses) {
+        this.packedClasses = packedClasses;
+    }
+
+    public List<String> getDexLoadingDetails() {
+        return dexLoadingDetails;
+    }
+
+    void setDexLoadingDetails(List<String> dexLoadingDetails) {
+        this.dexLoadingDetails = dexLoadingDetails;
+    }
+
+    // Only set when a Java unpacker was generated
+    public ApkAnalysisDetails getAnalysisDetails() {
+        return analysisDetails;
+    }
+
+    void setAnalysisDetails(ApkAnalysisDetails analysisDetails) {
+        this.analysisDetails = analysisDetails;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    void setError(String error) {
+        this.error = error;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
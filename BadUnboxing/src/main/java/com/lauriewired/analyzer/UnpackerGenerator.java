@@ -6,7 +6,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -18,11 +21,6 @@ import jadx.api.JavaClass;
 
 public class UnpackerGenerator {    
     private static final Logger logger = LoggerFactory.getLogger(UnpackerGenerator.class);
-    private static String apkPath;
-    private static File baseDir;
-    private static int importsRecognized;
-
-    private static final Set<String> existingNames = new HashSet<>();
     
 
     private static final Set<String> standardPackages = new HashSet<>(Arrays.asList(
@@ -38,6 +36,11 @@ public class UnpackerGenerator {
         "org.xml.sax"
     ));
 
+    private static final Pattern methodPattern = Pattern.compile("^(\\s*(?:public|protected|private))\\s+(?!static|class)");
+    private static final Pattern fieldPattern = Pattern.compile(
+        "^(\\s*(?:public\\s+|protected\\s+|private\\s+)?)(static\\s+)?(final\\s+)?([\\w\\[\\]\\<\\>]+\\s+)(field_\\w+\\s*)(=|;)");
+    private static final Pattern thisPattern = Pattern.compile("\\bthis\\.");
+
     private static final Set<String> androidOnlyImports = new HashSet<>(Arrays.asList(
         "android",
         "com.android",
@@ -45,7 +48,8 @@ public class UnpackerGenerator {
         "com.xiaomi"
     ));
 
-    public static ApkAnalysisDetails generateJava(JadxDecompiler jadx, String apkFilePath) {
+    // All state lives in the session, so different APKs can be generated concurrently
+    public static ApkAnalysisDetails generateJava(JadxDecompiler jadx, AnalysisSession session) {
         // Calculating how well BadUnboxing processed this sample
         int recognizedImports = 0;
         String fullQualifiedClassName = "";
@@ -56,15 +60,31 @@ public class UnpackerGenerator {
 
         if (applicationClass != null) {
             try {
-                Set<JavaClass> referencedClasses = new HashSet<>();
-                findReferencedClasses(applicationClass, referencedClasses, jadx); // Need all classes referenced by code
+                Set<JavaClass> referencedClasses = findReferencedClasses(applicationClass, jadx); // Need all classes referenced by code
+
+                // Names from an earlier run of this sample are reused, everything new is derived the same way
+                File apkFile = new File(session.getApkFilePath());
+                String className = getUnpackerClassName(apkFile);
+                session.setBaseDir(getProjectDir(apkFile, className));
+                File renameMapFile = RenameMap.getFile(session.getBaseDir());
+                session.getRenameMap().load(renameMapFile);
+
+                // Every rename in the slice is applied before any of it is decompiled again,
+                //  since a renamed method or field changes the code of every class using it
+                for (JavaClass currentClass : referencedClasses) {
+                    IdentifierRenamer.renameMethodsAndFields(currentClass, jadx, session.getRenameMap());
+                }
+                session.getRenamePass().addTargets(referencedClasses);
 
-                // Rename the methods and fields first since we'll have to reload the code before renaming args and vars
+                // Then the stale code is dropped all at once, and generateUnpackerJava decompiles each class a single time
+                //  in the scheduler's batches. Reloading class by class deep reloads its dependencies too,
+                //  so classes shared by the slice were processed over and over
                 for (JavaClass currentClass : referencedClasses) {
-                    IdentifierRenamer.renameMethodsAndFields(currentClass, jadx, existingNames);
+                    currentClass.unload();
                 }
 
-                fullQualifiedClassName = generateUnpackerJava(applicationClass, referencedClasses, apkFilePath, jadx);
+                fullQualifiedClassName = generateUnpackerJava(session, applicationClass, className, referencedClasses, jadx);
+                session.getRenameMap().save(renameMapFile);
             } catch (Exception e) {
                 logger.error("Error generating Unpacker.java", e);
             }
@@ -72,56 +92,78 @@ public class UnpackerGenerator {
             logger.info("No Application subclass found in the APK");
         }
 
-        return (new ApkAnalysisDetails(baseDir, fullQualifiedClassName, recognizedImports));
+        return (new ApkAnalysisDetails(session.getBaseDir(), fullQualifiedClassName, recognizedImports));
     }
 
-    private static String generateUnpackerJava(JavaClass applicationClass, Set<JavaClass> referencedClasses, String apkFilePath, JadxDecompiler jadx) {
-        StringBuilder javaCode = new StringBuilder();
-        
-        // Get the APK file
-        File apkFile = new File(apkFilePath);
-        apkPath = apkFilePath;
-        
-        // Determine the class name based on the APK file name
+    /*
+     * Next to the APK, named after the class plus a short hash of the APK, so samples whose names
+     *  share the first ten characters don't overwrite each other's project when generated concurrently
+     * The same APK always gets the same directory, which is what keeps its rename map and compiled classes
+     */
+    private static File getProjectDir(File apkFile, String className) throws IOException {
+        String apkHash = DecompilationCache.sha256(apkFile).substring(0, 12);
+        return new File(apkFile.getParent(), className + "_" + apkHash + "_BadUnboxing");
+    }
+
+    // Determine the class name based on the APK file name
+    private static String getUnpackerClassName(File apkFile) {
         String apkName = apkFile.getName();
         int dotIndex = apkName.lastIndexOf('.');
         String baseName = (dotIndex == -1) ? apkName : apkName.substring(0, dotIndex);
-        String className = "Unpacker_" + (baseName.length() > 10 ? baseName.substring(0, 10) : baseName);
-        baseDir = new File(apkFile.getParent(), className + "_BadUnboxing");
+        return "Unpacker_" + (baseName.length() > 10 ? baseName.substring(0, 10) : baseName);
+    }
 
+    // Throws when the entrypoint can't be generated, other classes that fail are left out and logged
+    private static String generateUnpackerJava(AnalysisSession session, JavaClass applicationClass, String className,
+                                               Set<JavaClass> referencedClasses, JadxDecompiler jadx) throws IOException {
         // Extract the package name
         String fullyQualifiedName = applicationClass.getFullName();
         String packageName = fullyQualifiedName.substring(0, fullyQualifiedName.lastIndexOf('.'));
 
-        // Initialize an ArrayList to store referenced class names
-        ArrayList<String> referencedClassNames = new ArrayList<>();
-            
-        // Process the main application subclass (entrypoint)
-        String appClassCode = processApplicationSubclass(applicationClass, className, jadx);
-        javaCode.append(appClassCode).append("\n");
+        // Rules are stateless so one rewriter is shared by every class
+        LineRewriter cleanupRewriter = createCleanupRewriter(className, packageName);
 
-        // Process referenced classes
+        // Every class only depends on its own code, so they can all be transformed at once
+        Map<JavaClass, CompilationUnit> transformedClasses = new ConcurrentHashMap<>();
+        List<JavaClass> failedClasses = JadxUtils.forEachClassParallel(jadx, new ArrayList<>(referencedClasses), cls -> {
+            boolean isEntrypoint = cls == applicationClass;
+            String classCode = isEntrypoint
+                ? processApplicationSubclass(session, cls, className)
+                : processReferencedClass(session, cls);
+
+            CompilationUnit unit = CompilationUnit.parse(isEntrypoint ? className : cls.getName(), classCode);
+
+            // Each class is separated into its own file, so its own imports are the ones that matter
+            RewriteRules.getInstance().apply(unit, session);
+            cleanupRewriter.rewrite(unit.getBody());
+            commentAndroidSpecificImports(unit.getImports());
+            transformedClasses.put(cls, unit);
+        });
+
+        if (failedClasses.contains(applicationClass)) {
+            throw new IllegalStateException("Could not transform entrypoint " + applicationClass.getFullName());
+        }
+        for (JavaClass failedClass : failedClasses) {
+            logger.warn("Leaving {} out of the unpacker, it could not be transformed", failedClass.getFullName());
+        }
+
+        // Collect in slice order (entrypoint first) so the output doesn't depend on thread timing
+        List<CompilationUnit> units = new ArrayList<>();
         for (JavaClass refClass : referencedClasses) {
-            if (refClass != applicationClass) {
-                insertNewClass(javaCode, refClass, jadx);
-                referencedClassNames.add(refClass.getName());
+            CompilationUnit unit = transformedClasses.get(refClass);
+            if (unit != null) {
+                units.add(unit);
             }
         }
 
-        // Do final cleanups on full code that is now completely added
-        finalProcessing(javaCode, className, packageName);
-
-        try {
-            outputClassesToFiles(apkFile, className, javaCode, referencedClassNames);
-        } catch (IOException e) {
-            logger.error("Error writing unpacker code to files");
-            e.printStackTrace();
-        }
+        // Do final cleanups that need every class
+        finalProcessing(units, packageName);
 
+        outputClassesToFiles(session.getBaseDir(), units);
         return packageName + "." + className;
     }
 
-    private static void outputClassesToFiles(File apkFile, String className, StringBuilder javaCode, ArrayList<String> referencedClassNames) throws IOException {
+    private static void outputClassesToFiles(File baseDir, List<CompilationUnit> units) throws IOException {
         // Get the directory of the APK file and create a base directory that includes 'src'
         File outputDir = new File(baseDir, "src");
 
@@ -132,35 +174,17 @@ public class UnpackerGenerator {
 
         // Create settings.json in the base directory for the new unpacker project
         createSettingsJson(baseDir);
-    
-        // Regex pattern to capture content based on "package" declaration
-        Pattern packagePattern = Pattern.compile("(package\\s+([\\w\\.]+);).*?(?=package\\s+[\\w\\.]+;|$)", Pattern.DOTALL);
-        Matcher packageMatcher = packagePattern.matcher(javaCode.toString());
-    
-        while (packageMatcher.find()) {
-            String packageBlock = packageMatcher.group(0);
-            String fullPackageName = packageMatcher.group(2);
-            String packagePath = fullPackageName.replace('.', File.separatorChar); // Convert package name to directory path
-    
-            // Create the full path for the package inside the 'src' directory
-            File packageDir = new File(outputDir, packagePath);
-            if (!packageDir.exists()) {
-                packageDir.mkdirs(); // Ensure the package directory structure is created
-            }
-    
-            // Extract the class name from the current block of code
-            Pattern classPattern = Pattern.compile("\\s+class\\s+(?!Application\\b|Context\\b)(\\w+)\\s+\\{"); // Simple class name extraction pattern
-            Matcher classMatcher = classPattern.matcher(packageBlock);
-            String fileName = "UnknownClass.java"; // Default file name in case no class name is found
-            if (classMatcher.find()) {
-                fileName = classMatcher.group(1) + ".java"; // Use the found class name for the file name
+
+        // Each unit already knows its package and class, so it maps straight to a file
+        for (CompilationUnit unit : units) {
+            File javaFile = unit.getTargetFile(outputDir);
+            if (!javaFile.getParentFile().exists()) {
+                javaFile.getParentFile().mkdirs(); // Ensure the package directory structure is created
             }
-    
-            // Write to a new Java file for each package block using the class name
-            File javaFile = new File(packageDir, fileName);
+
             try (FileWriter writer = new FileWriter(javaFile)) {
-                writer.write(packageBlock);
-                logger.info("Generated {} at {}", fileName, javaFile.getAbsolutePath());
+                writer.write(unit.toSource());
+                logger.info("Generated {} at {}", javaFile.getName(), javaFile.getAbsolutePath());
             }
         }
     }
@@ -189,77 +213,41 @@ public class UnpackerGenerator {
         }
     }
 
-    private static void finalProcessing(StringBuilder javaCode, String className, String packageName) {
-        commentPackageName(javaCode);
-        makeMethodsStatic(javaCode);
-        makeFieldsStatic(javaCode);
-        removeKeywordThis(javaCode);
-        CodeReplacerUtils.processContextMethods(javaCode, className, packageName);
-        CodeReplacerUtils.processApplicationMethods(javaCode);
-        commentAndroidSpecificImports(javaCode);
-        ReflectionRemover.removeReflection(javaCode);
+    // Cleanups that only ever look at one line of a single class, all run together in one pass
+    static LineRewriter createCleanupRewriter(String className, String packageName) {
+        LineRewriter rewriter = new LineRewriter()
+            .addRule(UnpackerGenerator::makeMethodStatic)
+            .addRule("field_", UnpackerGenerator::makeFieldStatic)
+            .addRule("this.", UnpackerGenerator::removeKeywordThis);
+        CodeReplacerUtils.addContextRules(rewriter, className, packageName);
+        return rewriter;
     }
 
-    private static void commentPackageName(StringBuilder javaCode) {
-        // Pattern to match the package name declaration
-        Pattern packagePattern = Pattern.compile("(?m)^package\\s+.*?;");
-        Matcher matcher = packagePattern.matcher(javaCode);
-    
-        // Buffer to hold the modified code
-        StringBuffer modifiedCode = new StringBuffer();
-    
-        // Comment out the package name declaration
-        if (matcher.find()) {
-            String packageStatement = matcher.group();
-            String commentedPackageStatement = "// " + packageStatement;
-            matcher.appendReplacement(modifiedCode, commentedPackageStatement);
-        }
-        matcher.appendTail(modifiedCode);
-    
-        // Replace the original code with the modified code
-        javaCode.setLength(0);
-        javaCode.append(modifiedCode);
+    static void finalProcessing(List<CompilationUnit> units, String packageName) {
+        CodeReplacerUtils.insertDummyContextClass(units, packageName);
+        CodeReplacerUtils.processApplicationMethods(units, packageName);
+        ReflectionRemover.removeReflection(units);
     }
 
-    private static void commentAndroidSpecificImports(StringBuilder javaCode) {
-        // Pattern to match import statements
-        Pattern importPattern = Pattern.compile("(?m)^import\\s+.*?;");
-        Matcher importMatcher = importPattern.matcher(javaCode);
-    
-        // Buffer to hold the modified code
-        StringBuffer modifiedCode = new StringBuffer();
-    
-        while (importMatcher.find()) {
-            String importStatement = importMatcher.group();
+    private static void commentAndroidSpecificImports(List<String> imports) {
+        for (int i = 0; i < imports.size(); i++) {
+            String importStatement = imports.get(i);
             // Extract the fully qualified class name from the import statement
             String className = importStatement.replaceFirst("import\\s+", "").replaceFirst(";", "").trim();
-            
+
             // Check if the class name starts with any of the specified prefixes
-            boolean isAndroidImport = false;
             for (String prefix : androidOnlyImports) {
                 if (className.startsWith(prefix)) {
-                    isAndroidImport = true;
+                    // Android-specific imports are commented out
+                    imports.set(i, "// " + importStatement);
                     break;
                 }
             }
-    
-            // If it is an Android-specific import, comment it out
-            if (isAndroidImport) {
-                importStatement = "// " + importStatement;
-            }
-    
-            // Append the modified or unmodified import statement to the buffer
-            importMatcher.appendReplacement(modifiedCode, importStatement);
         }
-        importMatcher.appendTail(modifiedCode);
-    
-        // Replace the original code with the modified code
-        javaCode.setLength(0);
-        javaCode.append(modifiedCode);
     }
 
-    private static String processApplicationSubclass(JavaClass applicationClass, String className, JadxDecompiler jadx) {
-        String appClassCode = IdentifierRenamer.renameArgsAndVars(applicationClass, jadx, existingNames).toString();
+    private static String processApplicationSubclass(AnalysisSession session, JavaClass applicationClass, String className) {
+        String appClassCode = IdentifierRenamer.renameArgsAndVars(applicationClass, session.getRenamePass(), session.getRenameMap()).toString();
         appClassCode = appClassCode.replace(applicationClass.getName(), className);
         appClassCode = appClassCode.replaceAll("extends Application", "");
         appClassCode = appClassCode.replaceAll("@Override // android.app.Application", "");
@@ -268,19 +256,13 @@ public class UnpackerGenerator {
         appClassCode = appClassCode.replaceAll("super\\.onCreate\\(\\);", "//super.onCreate(); // BadUnboxing: Remove superclass reference");
         appClassCode = replaceAttachBaseContextWithMain(appClassCode);
 
-        // Extract imports from the application subclass
-        StringBuilder imports = new StringBuilder();
-        Matcher importMatcher = Pattern.compile("(?m)^import\\s+.*?;").matcher(appClassCode);
-        while (importMatcher.find()) {
-            imports.append(importMatcher.group()).append("\n");
-        }
-
-        // Fix keywords for imports inside application subclass
-        appClassCode = processKeyWordsBasedOnImports(imports, appClassCode);
-
         return appClassCode;
     }
 
+    private static String processReferencedClass(AnalysisSession session, JavaClass refClass) {
+        return IdentifierRenamer.renameArgsAndVars(refClass, session.getRenamePass(), session.getRenameMap()).toString();
+    }
+
     private static String replaceAttachBaseContextWithMain(String appClassCode) {
         // Pattern to find the attachBaseContext method signature and extract the parameter name
         Pattern pattern = Pattern.compile("(public|protected|private|\\s*)\\s*void\\s*attachBaseContext\\(Context\\s+(\\w+)\\)");
@@ -308,205 +290,43 @@ public class UnpackerGenerator {
         return appClassCode;
     }
 
-    private static void makeFieldsStatic(StringBuilder javaCode) {
-        // Pattern to match field declarations that start with "field_"
-        // This pattern looks for optional access modifiers, optional "final" keyword, 
-        // any valid Java type (primitive or object), optional array brackets, and field names starting with "field_"
-        // It supports fields with or without initial access modifiers.
-        Pattern fieldPattern = Pattern.compile(
-            "(?m)^\\s*(public\\s+|protected\\s+|private\\s+)?(static\\s+)?(final\\s+)?([\\w\\[\\]\\<\\>]+\\s+)(field_\\w+\\s*)(=\\s*[^;]+)?;");
-    
-        Matcher matcher = fieldPattern.matcher(javaCode);
-        StringBuffer modifiedCode = new StringBuffer();
-    
-        while (matcher.find()) {
-            String accessModifier = matcher.group(1) == null ? "" : matcher.group(1); // Capture access modifiers
-            String isStatic = matcher.group(2); // Capture the 'static' keyword if it exists
-            String finalModifier = matcher.group(3) == null ? "" : matcher.group(3); // Capture the 'final' keyword if it exists
-            String type = matcher.group(4); // Capture the type
-            String fieldName = matcher.group(5); // Capture the field name
-            String initializer = matcher.group(6) == null ? "" : matcher.group(6); // Capture the initializer if present
-    
-            // Construct the replacement string
-            String replacement;
-            if (isStatic == null) {
-                // If 'static' keyword is missing, add it
-                replacement = accessModifier + "static " + finalModifier + type + fieldName + initializer + ";";
-            } else {
-                // If 'static' keyword is already there, keep the declaration as it is
-                replacement = matcher.group(0);
-            }
-    
-            // Append the replacement to the buffer
-            matcher.appendReplacement(modifiedCode, replacement);
-        }
-        matcher.appendTail(modifiedCode);
-    
-        // Replace the original code with the modified code
-        javaCode.setLength(0);
-        javaCode.append(modifiedCode);
-    }
-
-    private static void makeMethodsStatic(StringBuilder javaCode) {
-        // Pattern to match lines starting with whitespace followed by public, protected, or private, followed by a single whitespace, and not followed by "static"
-        Pattern methodPattern = Pattern.compile("(?m)^\\s*(public|protected|private)\\s+(?!static|class)");
-
-        Matcher matcher = methodPattern.matcher(javaCode);
-
-        // Buffer to hold the modified code
-        StringBuffer modifiedCode = new StringBuffer();
-
-        while (matcher.find()) {
-            String methodSignature = matcher.group();
-            // Modify the line to include "static" after the keyword
-            String modifiedMethod = methodSignature.replaceFirst("(public|protected|private)", "$1 static");
-            matcher.appendReplacement(modifiedCode, modifiedMethod);
+    private static String makeFieldStatic(String line) {
+        // Matches the start of field declarations for fields named "field_", with optional access modifiers,
+        //  optional "static" and "final" keywords and any valid Java type (primitive or object)
+        // Only the declaration head has to be on this line, so multi-line initializers are handled too
+        Matcher matcher = fieldPattern.matcher(line);
+        if (!matcher.find() || matcher.group(2) != null) {
+            // Not a field declaration, or the 'static' keyword is already there
+            return line;
         }
-        matcher.appendTail(modifiedCode);
 
-        // Replace the original code with the modified code
-        javaCode.setLength(0);
-        javaCode.append(modifiedCode);
+        // Add 'static' right after the access modifier
+        return line.substring(0, matcher.end(1)) + "static " + line.substring(matcher.end(1));
     }
 
-    private static void removeKeywordThis(StringBuilder javaCode) {
-        // Pattern to match all occurrences of "this."
-        Pattern thisPattern = Pattern.compile("\\bthis\\.");
-        Matcher matcher = thisPattern.matcher(javaCode);
-        StringBuffer modifiedCode = new StringBuffer();
-    
-        // Replace all occurrences with an empty string
-        while (matcher.find()) {
-            matcher.appendReplacement(modifiedCode, "");
+    private static String makeMethodStatic(String line) {
+        // Lines starting with whitespace followed by public, protected, or private, followed by whitespace, and not followed by "static"
+        Matcher matcher = methodPattern.matcher(line);
+        if (!matcher.find()) {
+            return line;
         }
-        matcher.appendTail(modifiedCode);
-    
-        // Replace the original code with the modified code
-        javaCode.setLength(0);
-        javaCode.append(modifiedCode);
-    }
 
-    private static void insertNewClass(StringBuilder javaCode, JavaClass newCodeClass, JadxDecompiler jadx) {
-        String newClassCode = IdentifierRenamer.renameArgsAndVars(newCodeClass, jadx, existingNames).toString();
-    
-        // Remove the package line and store it
-        /*
-        String packageLine = "";
-        Matcher packageMatcher = Pattern.compile("(?m)^package\\s+.*?;").matcher(newClassCode);
-        if (packageMatcher.find()) {
-            packageLine = packageMatcher.group();
-            newClassCode = newClassCode.replaceFirst("(?m)^package\\s+.*?;", "");
-        }*/
-        //TODO keep the package name so we can find it when separating classes
-    
-        // Process class imports and update the newClassCode by removing imports
-        StringBuilder imports = processClassImports(javaCode, newClassCode);
-
-        //TODO removing import moving due to placing files in separate java files
-        /*
-        newClassCode = newClassCode.replaceAll("(?m)^import\\s+.*?;", ""); // Remove imports from newClassCode
-    
-        // Insert new imports below the package line
-        int packageLineEnd = javaCode.indexOf(";");
-        if (packageLineEnd != -1) {
-            javaCode.insert(packageLineEnd + 1, "\n\n" + imports.toString());
-        } else {
-            javaCode.insert(0, packageLine + "\n\n" + imports.toString() + "\n");
-        }*/
-    
-        newClassCode = processKeyWordsBasedOnImports(imports, newClassCode);
-    
-        // Append the new class code without the package line and imports
-        javaCode.append(newClassCode).append("\n");
+        // Modify the line to include "static" after the keyword
+        return line.substring(0, matcher.end(1)) + " static" + line.substring(matcher.end(1));
     }
 
-    /*
-     * For performance, only search for methods and replace them if their parent class
-     *  has been imported
-     */
-    private static String processKeyWordsBasedOnImports(StringBuilder imports, String newClassCode) {
-        // Extract each import statement
-        Pattern importPattern = Pattern.compile("import\\s+([\\w\\.]+);");
-        Matcher matcher = importPattern.matcher(imports);
-
-        // For each import statement, check if it is supported and call the corresponding method
-        while (matcher.find()) {
-            String importClass = matcher.group(1);
-            String prefix = importClass.split("\\.")[0];
-            
-            if (androidOnlyImports.contains(prefix)) {
-                switch (importClass) {
-                    case "dalvik.system.DexClassLoader":
-                        logger.info("Processing methods from dalvik.system.DexClassLoader import");
-                        newClassCode = CodeReplacerUtils.processDexClassLoaderMethods(newClassCode);
-                        break;
-                    case "android.os.Build":
-                        logger.info("Processing methods from android.os.Build import");
-                        newClassCode = CodeReplacerUtils.processBuildMethods(newClassCode);
-                        break;
-                    case "android.content.pm.ApplicationInfo":
-                        logger.info("Processing methods from android.content.pm.ApplicationInfo import");
-                        newClassCode = CodeReplacerUtils.processApplicationInfoMethods(newClassCode, apkPath);
-                        break;
-                    case "android.util.ArrayMap":
-                        logger.info("Processing methods from import android.util.ArrayMap import");
-                        newClassCode = CodeReplacerUtils.processArrayMapMethods(newClassCode, imports);
-                        break;
-                    case "android.app.Application":
-                    case "android.content.Context":
-                        // Ignore these because we will process them on all code no matter what
-                        // Adding them as part of the switch anyway because they are technically supported
-                        break;
-                    default:
-                        logger.error("Unknown android import: " + importClass);
-                }
-            }
-        }
-
-        return newClassCode;
+    private static String removeKeywordThis(String line) {
+        // Remove all occurrences of "this."
+        return thisPattern.matcher(line).replaceAll("");
     }
 
-    private static StringBuilder processClassImports(StringBuilder javaCode, String newClassCode) {
-        // Extract imports from existing code
-        Set<String> existingImports = new HashSet<>();
-        Matcher importMatcher = Pattern.compile("(?m)^import\\s+.*?;").matcher(javaCode);
-        while (importMatcher.find()) {
-            existingImports.add(importMatcher.group());
-        }
-    
-        StringBuilder imports = new StringBuilder();
-        importMatcher = Pattern.compile("(?m)^import\\s+.*?;").matcher(newClassCode);
-        while (importMatcher.find()) {
-            String importStatement = importMatcher.group();
-            if (!existingImports.contains(importStatement)) {
-                imports.append(importStatement).append("\n");
-                existingImports.add(importStatement);
-            }
-        }
-    
-        return imports;
-    }
+    private static Set<JavaClass> findReferencedClasses(JavaClass applicationClass, JadxDecompiler jadx) {
+        ClassDependencyGraph dependencyGraph = ClassDependencyGraph.build(jadx);
 
-    private static void findReferencedClasses(JavaClass javaClass, Set<JavaClass> referencedClasses, JadxDecompiler jadx) {
-        // Add the current class to the referenced set if not already present
-        if (!referencedClasses.add(javaClass)) {
-            // Class already processed
-            return;
-        }
-    
-        String packageName = javaClass.getPackage();
-        String classCode = javaClass.getCode();
-    
-        // Iterate through all classes in the decompiler
-        for (JavaClass currentClass : jadx.getClasses()) {
-            if (packageName.equals(currentClass.getPackage()) && !javaClass.equals(currentClass) && !currentClass.getName().equals("R")) {
-                if (classCode.contains(currentClass.getName())) {
-                    referencedClasses.add(currentClass);
-                    logger.info("Adding class {} to referenced classes", currentClass.getName());
-                    findReferencedClasses(currentClass, referencedClasses, jadx);
-                }
-            }
-        }
+        // Only follow classes from the packer's own package, and skip resource classes
+        String packageName = applicationClass.getPackage();
+        return dependencyGraph.slice(applicationClass, cls ->
+            packageName.equals(cls.getPackage()) && !cls.getName().equals("R"));
     }
 
     private static boolean isCustomClass(String typeName) {
@@ -0,0 +1,141 @@
+package com.lauriewired.analyzer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jadx.api.JavaClass;
+import jadx.api.plugins.pass.JadxPassInfo;
+import jadx.api.plugins.pass.impl.OrderedJadxPassInfo;
+import jadx.api.plugins.pass.types.JadxDecompilePass;
+import jadx.core.dex.instructions.args.ArgType;
+import jadx.core.dex.instructions.args.CodeVar;
+import jadx.core.dex.instructions.args.RegisterArg;
+import jadx.core.dex.instructions.args.SSAVar;
+import jadx.core.dex.nodes.ClassNode;
+import jadx.core.dex.nodes.MethodNode;
+import jadx.core.dex.nodes.RootNode;
+
+/*
+ * Renames method arguments and local variables while jadx decompiles, straight on the code variables
+ *  that codegen reads names from, so no text matching is involved
+ * Only classes added as targets are touched, everything else decompiles as usual (and stays cacheable)
+ * One per AnalysisSession, and it has to be registered before the decompiler is loaded, see JadxUtils.loadJadx
+ */
+public class UnpackerRenamePass implements JadxDecompilePass {
+    private static final Logger logger = LoggerFactory.getLogger(UnpackerRenamePass.class);
+
+    private final RenameMap renameMap;
+    private final Set<ClassNode> targetClasses = ConcurrentHashMap.newKeySet();
+    private final Set<MethodNode> renamedMethods = ConcurrentHashMap.newKeySet();
+
+    public UnpackerRenamePass(RenameMap renameMap) {
+        this.renameMap = renameMap;
+    }
+
+    @Override
+    public JadxPassInfo getInfo() {
+        // Types and code variables are final by then, and nothing after this assigns names again
+        return new OrderedJadxPassInfo("BadUnboxingRenameVariables", "Rename arguments and locals for the unpacker")
+            .before("PrepareForCodeGen");
+    }
+
+    // Target classes get renamed the next time they're decompiled, so they have to be unloaded after adding them
+    public void addTargets(Collection<JavaClass> classes) {
+        for (JavaClass cls : classes) {
+            targetClasses.add(cls.getClassNode());
+        }
+    }
+
+    @Override
+    public void init(RootNode root) {
+    }
+
+    @Override
+    public boolean visit(ClassNode cls) {
+        return targetClasses.contains(cls.getTopParentClass());
+    }
+
+    @Override
+    public void visit(MethodNode mth) {
+        if (mth.isNoCode() || !targetClasses.contains(mth.getParentClass().getTopParentClass())) {
+            return;
+        }
+
+        // Variables are keyed by their method and position, so the same method always gets the same names
+        String methodKey = "var:" + mth.getParentClass().getRawName() + "." + mth.getMethodInfo().getShortId() + "#";
+        Set<CodeVar> renamed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (RegisterArg arg : mth.getArgRegs()) {
+            CodeVar codeVar = arg.getSVar().getCodeVar();
+            if (renamed.add(codeVar)) {
+                renameCodeVar(codeVar, "arg_", methodKey + renamed.size());
+            }
+        }
+
+        // Several SSA variables can share one code variable
+        for (SSAVar ssaVar : mth.getSVars()) {
+            CodeVar codeVar = ssaVar.getCodeVar();
+            if (!codeVar.isThis() && renamed.add(codeVar)) {
+                renameCodeVar(codeVar, "var_", methodKey + renamed.size());
+            }
+        }
+
+        renamedMethods.add(mth);
+    }
+
+    private void renameCodeVar(CodeVar codeVar, String prefix, String key) {
+        String originalName = getBaseName(codeVar);
+        if (originalName.startsWith(prefix)) {
+            return; // Already renamed on an earlier decompile
+        }
+        String uniqueName = renameMap.nameFor(key + ":" + originalName, originalName, prefix);
+        logger.debug("Renaming variable {} to {}", originalName, uniqueName);
+        codeVar.setName(uniqueName);
+    }
+
+    // Packers rarely ship debug info, so unnamed variables get a name from their type like jadx would
+    private static String getBaseName(CodeVar codeVar) {
+        if (codeVar.getName() != null) {
+            return codeVar.getName();
+        }
+
+        ArgType type = codeVar.getType();
+        if (type == null) {
+            return "v";
+        }
+        if (type.isArray()) {
+            return "arr";
+        }
+        if (type.isPrimitive()) {
+            return type.getPrimitiveType().getLongName();
+        }
+        if (type.isObject()) {
+            String typeName = type.getObject();
+            typeName = typeName.substring(Math.max(typeName.lastIndexOf('.'), typeName.lastIndexOf('$')) + 1);
+            if (!typeName.isEmpty()) {
+                return Character.toLowerCase(typeName.charAt(0)) + typeName.substring(1);
+            }
+        }
+        return "v";
+    }
+
+    // False when jadx couldn't decompile some method, those never reach this pass
+    public boolean isFullyRenamed(ClassNode cls) {
+        for (MethodNode mth : cls.getMethods()) {
+            if (!mth.isNoCode() && !renamedMethods.contains(mth)) {
+                return false;
+            }
+        }
+        for (ClassNode innerClass : cls.getInnerClasses()) {
+            if (!isFullyRenamed(innerClass)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,371 @@
+package com.lauriewired.analyzer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Compiles a generated project and runs its unpacker inside this JVM, no javac or java process involved
+ * Every .java file under src is compiled in memory, then loaded by a class loader that only sees the
+ *  JDK, the compiled classes and the src directory (the classpath the unpacker used to run with)
+ * Compiled classes are kept in a CompiledClassCache, so only sources that changed get compiled again
+ * Keep one per project: the compiler and file manager are reused, but every run gets a new class loader,
+ *  so nothing the last run left in static fields is visible to the next one
+ */
+public class UnpackerRunner {
+    private static final Logger logger = LoggerFactory.getLogger(UnpackerRunner.class);
+
+    // Debug info so stack traces from the unpacker point at lines in the generated files
+    private static final List<String> COMPILER_OPTIONS = Arrays.asList("-g", "-proc:none", "-implicit:none");
+
+    // An in-process run takes over user.dir, System.out and System.err, which the whole JVM shares
+    private static final ReentrantLock IN_PROCESS_LOCK = new ReentrantLock();
+
+    private final File sourceDir;
+    private final JavaCompiler compiler;
+    private final StandardJavaFileManager standardFileManager;
+    private final CompiledClassCache cache;
+    private Map<String, byte[]> compiledClasses = Collections.emptyMap();
+
+    public UnpackerRunner(File sourceDir) throws IOException {
+        this.sourceDir = sourceDir.getAbsoluteFile();
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler available, BadUnboxing has to run on a JDK");
+        }
+
+        this.standardFileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        // Compile against the same classpath the unpacker runs with, not BadUnboxing's own
+        // Sources that aren't being recompiled are still read from src to resolve names, but produce no classes
+        standardFileManager.setLocation(StandardLocation.CLASS_PATH, Collections.singletonList(this.sourceDir));
+        standardFileManager.setLocation(StandardLocation.SOURCE_PATH, Collections.singletonList(this.sourceDir));
+        this.cache = CompiledClassCache.load(this.sourceDir);
+    }
+
+    public File getSourceDir() {
+        return sourceDir;
+    }
+
+    /*
+     * Brings the compiled classes up to date with the sources on disk, so edits saved since the last run are picked up
+     * Only sources whose hash changed are recompiled, together with every source that names a class they define
+     *  (a changed constant or signature would leave those stale). Nothing changed means javac isn't called at all
+     */
+    public synchronized boolean compile(PrintStream console) throws IOException {
+        Map<String, byte[]> sources = readSources();
+        if (sources.isEmpty()) {
+            console.println("No Java files found to compile.");
+            return false;
+        }
+
+        Map<String, String> sourceHashes = new HashMap<>();
+        Set<String> changed = new TreeSet<>();
+        for (Map.Entry<String, byte[]> source : sources.entrySet()) {
+            String hash = DecompilationCache.sha256(source.getValue());
+            sourceHashes.put(source.getKey(), hash);
+            if (!hash.equals(cache.getSourceHash(source.getKey()))) {
+                changed.add(source.getKey());
+            }
+        }
+        Set<String> removed = new TreeSet<>(cache.getSourcePaths());
+        removed.removeAll(sources.keySet());
+
+        if (changed.isEmpty() && removed.isEmpty()) {
+            compiledClasses = cache.getAllClasses();
+            logger.info("All {} sources unchanged, skipping compilation", sources.size());
+            return true;
+        }
+
+        Set<String> toCompile = addDependents(changed, removed, sources);
+
+        long start = System.currentTimeMillis();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        MemoryFileManager fileManager = new MemoryFileManager(standardFileManager);
+        List<File> sourceFiles = toCompile.stream()
+                                          .map(sourcePath -> new File(sourceDir, sourcePath))
+                                          .collect(Collectors.toList());
+        // Removing a source nothing else uses leaves nothing to compile
+        boolean success = sourceFiles.isEmpty() || compiler.getTask(null, fileManager, diagnostics, COMPILER_OPTIONS, null,
+                standardFileManager.getJavaFileObjectsFromFiles(sourceFiles)).call();
+
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            console.println(formatDiagnostic(diagnostic));
+        }
+
+        // The cache only ever holds a state that compiled
+        if (!success) {
+            return false;
+        }
+
+        for (String sourcePath : removed) {
+            cache.remove(sourcePath);
+        }
+        Map<String, Map<String, byte[]>> classesBySource = fileManager.getClassesBySource();
+        for (String sourcePath : toCompile) {
+            Map<String, byte[]> classes = classesBySource.get(sourcePath);
+            cache.put(sourcePath, sourceHashes.get(sourcePath), classes != null ? classes : new HashMap<>());
+        }
+        cache.save();
+
+        compiledClasses = cache.getAllClasses();
+        logger.info("Compiled {} of {} sources to {} classes in {} ms",
+                toCompile.size(), sources.size(), compiledClasses.size(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    // Every .java file under src by its path relative to src
+    private Map<String, byte[]> readSources() throws IOException {
+        Map<String, byte[]> sources = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(sourceDir.toPath())) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (path.toString().endsWith(".java") && Files.isRegularFile(path)) {
+                    sources.put(toSourcePath(path), Files.readAllBytes(path));
+                }
+            }
+        }
+        return sources;
+    }
+
+    private String toSourcePath(Path path) {
+        return sourceDir.toPath().relativize(path.toAbsolutePath().normalize()).toString().replace(File.separatorChar, '/');
+    }
+
+    // Matches class names as plain text, so a comment or string naming the class just costs an extra recompile
+    private Set<String> addDependents(Set<String> changed, Set<String> removed, Map<String, byte[]> sources) {
+        Set<String> toCompile = new TreeSet<>(changed);
+        Set<String> newlyAdded = new TreeSet<>(changed);
+        newlyAdded.addAll(removed);
+
+        while (!newlyAdded.isEmpty()) {
+            Set<String> names = new HashSet<>();
+            for (String sourcePath : newlyAdded) {
+                for (String className : cache.getClassNames(sourcePath)) {
+                    names.add(getTopLevelSimpleName(className));
+                }
+            }
+            newlyAdded.clear();
+            if (names.isEmpty()) {
+                break;
+            }
+            // Obfuscated names can be anything, the scanner only takes ASCII
+            if (!names.stream().allMatch(name -> name.chars().allMatch(c -> c < 128))) {
+                return new TreeSet<>(sources.keySet());
+            }
+
+            KeywordScanner scanner = new KeywordScanner(names);
+            for (Map.Entry<String, byte[]> source : sources.entrySet()) {
+                if (!toCompile.contains(source.getKey()) && !scanner.findAll(ByteBuffer.wrap(source.getValue())).isEmpty()) {
+                    toCompile.add(source.getKey());
+                    newlyAdded.add(source.getKey());
+                }
+            }
+        }
+        return toCompile;
+    }
+
+    private static String getTopLevelSimpleName(String className) {
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        int nested = simpleName.indexOf('$');
+        return nested > 0 ? simpleName.substring(0, nested) : simpleName;
+    }
+
+    // Same layout javac prints, so the console reads like it did before
+    private static String formatDiagnostic(Diagnostic<? extends JavaFileObject> diagnostic) {
+        String kind = diagnostic.getKind() == Diagnostic.Kind.ERROR ? "error" : "warning";
+        String message = diagnostic.getMessage(Locale.getDefault());
+        if (diagnostic.getSource() == null) {
+            return kind + ": " + message;
+        }
+        return diagnostic.getSource().getName() + ":" + diagnostic.getLineNumber() + ": " + kind + ": " + message;
+    }
+
+    /*
+     * Runs main from the last successful compile on the calling thread
+     * Generated code resolves its dynamic artifacts directory from user.dir, so that points at src
+     *  while the unpacker runs, like it did when it was started there, and System.out and System.err
+     *  point at console so its output lands with the project that ran it
+     * Those are JVM wide, so only one in-process run is allowed at a time across every runner,
+     *  a second one fails with IllegalStateException instead of waiting. Supervised runs aren't limited
+     * The runner isn't locked while main runs, so compiling isn't held up by an unpacker that never returns,
+     *  but the in-process lock stays taken until it does
+     * Anything main throws comes back wrapped in an InvocationTargetException
+     */
+    public void run(String mainClassName, PrintStream console, String... args) throws ReflectiveOperationException, IOException {
+        Map<String, byte[]> classes;
+        synchronized (this) {
+            classes = compiledClasses;
+        }
+        if (classes.isEmpty()) {
+            throw new IllegalStateException("Nothing compiled to run");
+        }
+        if (!IN_PROCESS_LOCK.tryLock()) {
+            throw new IllegalStateException("Another unpacker is already running in-process");
+        }
+
+        Thread thread = Thread.currentThread();
+        ClassLoader previousContextLoader = thread.getContextClassLoader();
+        String previousUserDir = System.getProperty("user.dir");
+        PrintStream previousOut = System.out;
+        PrintStream previousErr = System.err;
+
+        try (MemoryClassLoader loader = new MemoryClassLoader(classes, sourceDir)) {
+            Method main = loader.loadClass(mainClassName).getMethod("main", String[].class);
+            if (!Modifier.isStatic(main.getModifiers())) {
+                throw new NoSuchMethodException(mainClassName + ".main is not static");
+            }
+
+            long start = System.currentTimeMillis();
+            thread.setContextClassLoader(loader);
+            System.setProperty("user.dir", sourceDir.getAbsolutePath());
+            System.setOut(console);
+            System.setErr(console);
+            main.invoke(null, (Object) args);
+            logger.info("Ran {} in {} ms", mainClassName, System.currentTimeMillis() - start);
+        } finally {
+            System.setOut(previousOut);
+            System.setErr(previousErr);
+            System.setProperty("user.dir", previousUserDir);
+            thread.setContextClassLoader(previousContextLoader);
+            IN_PROCESS_LOCK.unlock();
+        }
+    }
+
+    /*
+     * Runs main from the last successful compile in a child JVM, under the watchdog's limits
+     * Costs a JVM startup but no javac, and unlike an in-process run it can be stopped when the unpacker
+     *  spins or allocates without bound. The working directory is src, like in-process runs
+     */
+    public UnpackerWatchdog.Outcome runSupervised(String mainClassName, UnpackerWatchdog watchdog, OutputStream console) throws IOException {
+        Map<String, byte[]> classes;
+        synchronized (this) {
+            classes = compiledClasses;
+        }
+        if (classes.isEmpty()) {
+            throw new IllegalStateException("Nothing compiled to run");
+        }
+
+        Path classesDir = Files.createTempDirectory("badunboxing-classes");
+        try {
+            for (Map.Entry<String, byte[]> cls : classes.entrySet()) {
+                Path classFile = classesDir.resolve(cls.getKey().replace('.', '/') + ".class");
+                Files.createDirectories(classFile.getParent());
+                Files.write(classFile, cls.getValue());
+            }
+
+            String javaExecutable = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            ProcessBuilder processBuilder = new ProcessBuilder(
+                    javaExecutable,
+                    "-Xmx" + watchdog.getLimits().getMaxHeapMb() + "m",
+                    "-XX:+ExitOnOutOfMemoryError",
+                    "-cp", classesDir + File.pathSeparator + sourceDir,
+                    mainClassName);
+            processBuilder.directory(sourceDir);
+            logger.info("Running {} supervised ({})", mainClassName, watchdog.getLimits());
+            return watchdog.run(processBuilder, console);
+        } finally {
+            deleteRecursively(classesDir);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            logger.warn("Error deleting " + dir, e);
+        }
+    }
+
+    // Keeps class files in memory, grouped by the source they were compiled from, everything else goes to the standard file manager
+    private class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, Map<String, byte[]>> classesBySource = new HashMap<>();
+
+        MemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) throws IOException {
+            if (kind != JavaFileObject.Kind.CLASS) {
+                return super.getJavaFileForOutput(location, className, kind, sibling);
+            }
+
+            String sourcePath = sibling == null ? "" : toSourcePath(Paths.get(sibling.toUri()));
+            URI uri = URI.create("mem:///" + className.replace('.', '/') + kind.extension);
+            return new SimpleJavaFileObject(uri, kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return new ByteArrayOutputStream() {
+                        @Override
+                        public void close() {
+                            classesBySource.computeIfAbsent(sourcePath, k -> new HashMap<>()).put(className, toByteArray());
+                        }
+                    };
+                }
+            };
+        }
+
+        Map<String, Map<String, byte[]>> getClassesBySource() {
+            return classesBySource;
+        }
+    }
+
+    // The platform loader is the parent, so the unpacker can't reach any of BadUnboxing's classes
+    private static class MemoryClassLoader extends URLClassLoader {
+        private final Map<String, byte[]> classes;
+
+        MemoryClassLoader(Map<String, byte[]> classes, File sourceDir) throws IOException {
+            super(new URL[] { sourceDir.toURI().toURL() }, ClassLoader.getPlatformClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes != null) {
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+            return super.findClass(name);
+        }
+    }
+}
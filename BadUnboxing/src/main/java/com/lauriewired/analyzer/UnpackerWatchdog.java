@@ -0,0 +1,185 @@
+package com.lauriewired.analyzer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Runs a child process and stops it once it goes over its ExecutionLimits or is cancelled
+ * Wall-clock and CPU time are polled, the heap cap has to be part of the command (UnpackerRunner adds -Xmx),
+ *  and output past the cap is still read but dropped so the child never blocks on a full pipe
+ * One per execution, cancel() can be called from any thread
+ */
+public class UnpackerWatchdog {
+    private static final Logger logger = LoggerFactory.getLogger(UnpackerWatchdog.class);
+
+    public enum Outcome {
+        COMPLETED,
+        TIMEOUT,
+        OUT_OF_MEMORY,
+        CRASHED,
+        CANCELLED
+    }
+
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final long CANCEL_GRACE_MS = 2000;
+    private static final int TAIL_SIZE = 4096;
+
+    // Printed by the JVM on its way out when -XX:+ExitOnOutOfMemoryError is set
+    private static final String OOM_MARKER = "java.lang.OutOfMemoryError";
+
+    private final ExecutionLimits limits;
+    private volatile boolean cancelled;
+
+    public UnpackerWatchdog(ExecutionLimits limits) {
+        this.limits = limits;
+    }
+
+    public ExecutionLimits getLimits() {
+        return limits;
+    }
+
+    // The process gets a chance to exit on its own before it's killed
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // stdout and stderr are merged into console, interrupting the calling thread counts as a cancel
+    public Outcome run(ProcessBuilder processBuilder, OutputStream console) throws IOException {
+        long start = System.nanoTime();
+        Process process = processBuilder.redirectErrorStream(true).start();
+
+        OutputPump pump = new OutputPump(process.getInputStream(), console, limits.getMaxOutputBytes());
+        Thread pumpThread = new Thread(pump, "unpacker-output-" + process.pid());
+        pumpThread.setDaemon(true);
+        pumpThread.start();
+
+        Outcome outcome = null;
+        try {
+            while (!process.waitFor(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                if (cancelled) {
+                    logger.info("Cancelling unpacker process {}", process.pid());
+                    stop(process, true);
+                    outcome = Outcome.CANCELLED;
+                    break;
+                }
+
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (elapsedMillis > limits.getWallClockMillis()) {
+                    logger.warn("Unpacker process {} ran past its {} ms wall-clock limit", process.pid(), limits.getWallClockMillis());
+                    stop(process, false);
+                    outcome = Outcome.TIMEOUT;
+                    break;
+                }
+
+                long cpuMillis = process.info().totalCpuDuration().map(Duration::toMillis).orElse(0L);
+                if (cpuMillis > limits.getCpuMillis()) {
+                    logger.warn("Unpacker process {} used more than its {} ms CPU limit", process.pid(), limits.getCpuMillis());
+                    stop(process, false);
+                    outcome = Outcome.TIMEOUT;
+                    break;
+                }
+            }
+            // Let the pump write whatever the process printed last
+            pumpThread.join(1000);
+        } catch (InterruptedException e) {
+            stop(process, false);
+            Thread.currentThread().interrupt();
+            outcome = Outcome.CANCELLED;
+        }
+
+        if (outcome == null) {
+            int exitCode = process.exitValue();
+            if (exitCode == 0) {
+                outcome = Outcome.COMPLETED;
+            } else if (pump.tailContains(OOM_MARKER)) {
+                outcome = Outcome.OUT_OF_MEMORY;
+            } else {
+                outcome = Outcome.CRASHED;
+            }
+            logger.info("Unpacker process {} exited with code {}", process.pid(), exitCode);
+        }
+
+        logger.info("Unpacker run finished as {} after {} ms", outcome,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return outcome;
+    }
+
+    // Anything the unpacker started goes down with it
+    private static void stop(Process process, boolean graceful) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        try {
+            if (graceful) {
+                process.destroy();
+                if (process.waitFor(CANCEL_GRACE_MS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+            process.destroyForcibly().waitFor(CANCEL_GRACE_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Copies output up to the cap and keeps the last few KB to classify how the process ended
+    private static class OutputPump implements Runnable {
+        private final InputStream in;
+        private final OutputStream out;
+        private final long maxBytes;
+        private final byte[] tail = new byte[TAIL_SIZE];
+        private int tailLength;
+        private long written;
+
+        OutputPump(InputStream in, OutputStream out, long maxBytes) {
+            this.in = in;
+            this.out = out;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[8192];
+            try {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    keepTail(buffer, read);
+                    if (written < maxBytes) {
+                        int toWrite = (int) Math.min(read, maxBytes - written);
+                        out.write(buffer, 0, toWrite);
+                        written += toWrite;
+                        if (written == maxBytes) {
+                            out.write(("\n[Output truncated after " + maxBytes / 1024 + " KB]\n").getBytes(StandardCharsets.UTF_8));
+                        }
+                    }
+                }
+                out.flush();
+            } catch (IOException e) {
+                logger.debug("Unpacker output closed", e);
+            }
+        }
+
+        private synchronized void keepTail(byte[] buffer, int length) {
+            if (length >= TAIL_SIZE) {
+                System.arraycopy(buffer, length - TAIL_SIZE, tail, 0, TAIL_SIZE);
+                tailLength = TAIL_SIZE;
+                return;
+            }
+            int keep = Math.min(tailLength, TAIL_SIZE - length);
+            System.arraycopy(tail, tailLength - keep, tail, 0, keep);
+            System.arraycopy(buffer, 0, tail, keep, length);
+            tailLength = keep + length;
+        }
+
+        synchronized boolean tailContains(String marker) {
+            return new String(Arrays.copyOf(tail, tailLength), StandardCharsets.ISO_8859_1).contains(marker);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.lauriewired.analyzer.rules;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lauriewired.analyzer.AnalysisSession;
+import com.lauriewired.analyzer.CompilationUnit;
+import com.lauriewired.analyzer.LineRewriter;
+import com.lauriewired.analyzer.RewriteRule;
+
+/*
+ * Modifying methods from android.content.pm.ApplicationInfo
+ * Also triggered by the field itself, getApplicationInfo().sourceDir doesn't need the import
+ */
+public class ApplicationInfoRule implements RewriteRule {
+    private static final Logger logger = LoggerFactory.getLogger(ApplicationInfoRule.class);
+
+    private static final Pattern sourceDirPattern = Pattern.compile("(sourceDir)|(([a-zA-Z]+\\.)sourceDir|[a-zA-Z]+\\(\\)\\.sourceDir)");
+
+    @Override
+    public Collection<String> getTriggerImports() {
+        return Collections.singletonList("android.content.pm.ApplicationInfo");
+    }
+
+    @Override
+    public Collection<String> getTriggerTokens() {
+        return Collections.singletonList(".sourceDir");
+    }
+
+    @Override
+    public void apply(CompilationUnit unit, AnalysisSession session) {
+        // The replacement depends on the APK, everything else is shared
+        // Backslashes are escaped once for the Java string literal, then quoted for replaceAll
+        String literal = "\"" + session.getApkFilePath().replace("\\", "\\\\") + "\"";
+        String replacement = Matcher.quoteReplacement(literal);
+        new LineRewriter()
+            .addRule(".sourceDir", line -> modifySourceDir(line, replacement))
+            //.addRule(".nativeLibraryDir", ApplicationInfoRule::modifyNativeLibraryDir) //TODO
+            .rewrite(unit.getBody());
+    }
+
+    private static String modifySourceDir(String line, String replacement) {
+        logger.info("Replacing call to sourceDir with path to APK");
+        return sourceDirPattern.matcher(line).replaceAll(replacement) + " // BadUnboxing: Replacing sourceDir with path to APK";
+    }
+}
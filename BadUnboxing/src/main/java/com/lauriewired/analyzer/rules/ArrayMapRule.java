@@ -0,0 +1,46 @@
+package com.lauriewired.analyzer.rules;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lauriewired.analyzer.AnalysisSession;
+import com.lauriewired.analyzer.CompilationUnit;
+import com.lauriewired.analyzer.LineRewriter;
+import com.lauriewired.analyzer.RewriteRule;
+
+/*
+ * Modifying methods from android.util.ArrayMap
+ */
+public class ArrayMapRule implements RewriteRule {
+    private static final Logger logger = LoggerFactory.getLogger(ArrayMapRule.class);
+
+    private static final Pattern arrayMapPattern = Pattern.compile("\\bArrayMap\\b");
+
+    private static final LineRewriter rewriter = new LineRewriter()
+        .addRule("ArrayMap", ArrayMapRule::replaceArrayMap);
+
+    @Override
+    public Collection<String> getTriggerImports() {
+        return Collections.singletonList("android.util.ArrayMap");
+    }
+
+    @Override
+    public void apply(CompilationUnit unit, AnalysisSession session) {
+        unit.addImport("java.util.HashMap");
+        rewriter.rewrite(unit.getBody());
+    }
+
+    private static String replaceArrayMap(String line) {
+        if (!arrayMapPattern.matcher(line).find()) {
+            return line;
+        }
+
+        // Replace all occurrences of ArrayMap with HashMap and add a comment at the end of the line
+        logger.info("Replacing call to ArrayMap references with HashMap");
+        return arrayMapPattern.matcher(line).replaceAll("HashMap") + " // BadUnboxing: Replacing ArrayMap with HashMap";
+    }
+}
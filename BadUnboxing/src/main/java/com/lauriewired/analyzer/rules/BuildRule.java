@@ -0,0 +1,41 @@
+package com.lauriewired.analyzer.rules;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lauriewired.analyzer.AnalysisSession;
+import com.lauriewired.analyzer.CompilationUnit;
+import com.lauriewired.analyzer.LineRewriter;
+import com.lauriewired.analyzer.RewriteRule;
+
+/*
+ * Modifying methods from android.os.Build
+ */
+public class BuildRule implements RewriteRule {
+    private static final Logger logger = LoggerFactory.getLogger(BuildRule.class);
+
+    private static final Pattern sdkIntPattern = Pattern.compile("(SDK_INT)|(([a-zA-Z]+\\.)+SDK_INT)");
+
+    private static final LineRewriter rewriter = new LineRewriter()
+        .addRule("SDK_INT", BuildRule::modifyBuildSdkInt);
+
+    @Override
+    public Collection<String> getTriggerImports() {
+        return Collections.singletonList("android.os.Build");
+    }
+
+    @Override
+    public void apply(CompilationUnit unit, AnalysisSession session) {
+        rewriter.rewrite(unit.getBody());
+    }
+
+    private static String modifyBuildSdkInt(String line) {
+        // Replace SDK_INT with 30 and add a comment at the end of the line
+        logger.info("Replacing call to SDK_INT with constant value 30 in line");
+        return sdkIntPattern.matcher(line).replaceAll("30") + " // BadUnboxing: Hardcode build SDK_INT";
+    }
+}
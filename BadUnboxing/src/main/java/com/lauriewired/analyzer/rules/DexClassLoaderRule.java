@@ -0,0 +1,49 @@
+package com.lauriewired.analyzer.rules;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lauriewired.analyzer.AnalysisSession;
+import com.lauriewired.analyzer.CompilationUnit;
+import com.lauriewired.analyzer.LineRewriter;
+import com.lauriewired.analyzer.RewriteRule;
+
+/*
+ * Modifying methods from dalvik.system.DexClassLoader
+ */
+public class DexClassLoaderRule implements RewriteRule {
+    private static final Logger logger = LoggerFactory.getLogger(DexClassLoaderRule.class);
+
+    // Pattern to find calls to new DexClassLoader with arguments
+    private static final Pattern dexClassLoaderPattern = Pattern.compile(".*new\\s+DexClassLoader\\(([^,]+),.*");
+
+    private static final LineRewriter rewriter = new LineRewriter()
+        .addRule("DexClassLoader(", DexClassLoaderRule::replaceDexClassLoader);
+
+    @Override
+    public Collection<String> getTriggerImports() {
+        return Collections.singletonList("dalvik.system.DexClassLoader");
+    }
+
+    @Override
+    public void apply(CompilationUnit unit, AnalysisSession session) {
+        rewriter.rewrite(unit.getBody());
+    }
+
+    private static String replaceDexClassLoader(String line) {
+        Matcher matcher = dexClassLoaderPattern.matcher(line);
+        if (!matcher.find()) {
+            return line;
+        }
+
+        // Replace the call to DexClassLoader with System.out.println(firstArgument)
+        String firstArgument = matcher.group(1).trim();
+        logger.info("Replacing call to DexClassLoader with printing target directory to console");
+        return "System.out.println(" + firstArgument + "); // BadUnboxing: Replacing DexClassLoader call with directory print";
+    }
+}
@@ -0,0 +1,294 @@
+package com.lauriewired.batch;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lauriewired.analyzer.ApkAnalysisDetails;
+import com.lauriewired.analyzer.ApkTriage;
+import com.lauriewired.analyzer.DynamicDexLoaderDetection;
+import com.lauriewired.analyzer.ExecutionLimits;
+import com.lauriewired.analyzer.LayerUnpacker;
+import com.lauriewired.analyzer.TriageResult;
+
+/*
+ * Headless triage of many APKs at once
+ * Usage: --batch <apk directory | apk file | list file> [--workers N] [--output <dir>] [--detection bytecode|source] [--layers N]
+ * --layers runs the generated unpackers to unpack up to N dropped layers, so only use it in a sandbox
+ */
+public class BatchTriage {
+    private static final Logger logger = LoggerFactory.getLogger(BatchTriage.class);
+
+    // Each worker holds a full jadx instance in memory so don't default to every core
+    private static final int DEFAULT_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    public static int run(String[] args) {
+        File input = null;
+        File outputDir = new File("badunboxing_results");
+        int workers = DEFAULT_WORKERS;
+        DynamicDexLoaderDetection.DetectionMode detectionMode = DynamicDexLoaderDetection.DetectionMode.BYTECODE;
+        int maxLayers = 0;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--batch":
+                        input = new File(args[++i]);
+                        break;
+                    case "--workers":
+                        workers = Integer.parseInt(args[++i]);
+                        break;
+                    case "--output":
+                        outputDir = new File(args[++i]);
+                        break;
+                    case "--detection":
+                        detectionMode = DynamicDexLoaderDetection.DetectionMode.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                        break;
+                    case "--layers":
+                        maxLayers = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        logger.error("Unknown argument: " + args[i]);
+                        printUsage();
+                        return 2;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            printUsage();
+            return 2;
+        }
+
+        if (input == null || !input.exists() || workers < 1 || maxLayers < 0) {
+            printUsage();
+            return 2;
+        }
+
+        List<File> apkFiles;
+        try {
+            apkFiles = collectApks(input);
+        } catch (IOException e) {
+            logger.error("Error reading batch input " + input, e);
+            return 1;
+        }
+
+        if (!outputDir.exists()) {
+            outputDir.mkdirs();
+        }
+
+        return runBatch(apkFiles, outputDir, workers, detectionMode, maxLayers);
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: java -jar BadUnboxing.jar --batch <apk directory | apk file | list file> [--workers N] [--output <dir>] [--detection bytecode|source] [--layers N]");
+    }
+
+    static int runBatch(List<File> apkFiles, File outputDir, int workers, DynamicDexLoaderDetection.DetectionMode detectionMode, int maxLayers) {
+        logger.info("Triaging {} APKs with {} workers", apkFiles.size(), workers);
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Set<String> usedNames = new HashSet<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        for (File apkFile : apkFiles) {
+            // Pick the result file up front so identical APK names from different folders don't collide
+            File resultFile = uniqueResultFile(outputDir, apkFile, usedNames);
+
+            executor.submit(() -> {
+                TriageResult result = ApkTriage.triage(apkFile.getAbsolutePath(), detectionMode);
+                if (result.getVerdict() == TriageResult.Verdict.ERROR) {
+                    failed.incrementAndGet();
+                }
+
+                // The batch already runs APKs in parallel, so each one unpacks its own layers on one thread
+                List<LayerUnpacker.Layer> layers = new ArrayList<>();
+                if (maxLayers > 0 && result.getVerdict() == TriageResult.Verdict.JAVA_LOADER) {
+                    try {
+                        layers = LayerUnpacker.unpack(result, detectionMode, maxLayers, 1, ExecutionLimits.fromSystemProperties());
+                    } catch (IOException | RuntimeException e) {
+                        logger.error("Error unpacking layers of " + apkFile, e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+
+                try {
+                    writeResult(resultFile, result, layers);
+                } catch (IOException e) {
+                    logger.error("Error writing result for " + apkFile, e);
+                    failed.incrementAndGet();
+                }
+
+                logger.info("[{}/{}] {}: {} ({} ms)", completed.incrementAndGet(), apkFiles.size(),
+                        apkFile.getName(), result.getVerdict(), result.getElapsedMillis());
+            });
+        }
+
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+
+        logger.info("Batch complete: {} APKs, {} errors, results in {}", apkFiles.size(), failed.get(), outputDir.getAbsolutePath());
+        return failed.get() == 0 ? 0 : 1;
+    }
+
+    static List<File> collectApks(File input) throws IOException {
+        if (input.isDirectory()) {
+            try (Stream<Path> paths = Files.walk(input.toPath())) {
+                return paths.filter(Files::isRegularFile)
+                            .filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".apk"))
+                            .sorted()
+                            .map(Path::toFile)
+                            .collect(Collectors.toList());
+            }
+        }
+
+        if (input.getName().toLowerCase(Locale.ROOT).endsWith(".apk")) {
+            List<File> single = new ArrayList<>();
+            single.add(input);
+            return single;
+        }
+
+        // Anything else is treated as a list file with one APK path per line
+        List<File> apkFiles = new ArrayList<>();
+        for (String line : Files.readAllLines(input.toPath(), StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            File apkFile = new File(line);
+            if (apkFile.isFile()) {
+                apkFiles.add(apkFile);
+            } else {
+                logger.warn("Skipping missing APK from list: {}", line);
+            }
+        }
+        return apkFiles;
+    }
+
+    private static File uniqueResultFile(File outputDir, File apkFile, Set<String> usedNames) {
+        String name = apkFile.getName();
+        String candidate = name;
+        for (int i = 1; !usedNames.add(candidate); i++) {
+            candidate = name + "_" + i;
+        }
+        return new File(outputDir, candidate + ".json");
+    }
+
+    static void writeResult(File resultFile, TriageResult result, List<LayerUnpacker.Layer> layers) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("    \"apk\": ").append(quote(result.getApkFilePath())).append(",\n");
+        json.append("    \"verdict\": ").append(quote(result.getVerdict().name())).append(",\n");
+        json.append("    \"elapsedMillis\": ").append(result.getElapsedMillis()).append(",\n");
+        json.append("    \"missingClasses\": ").append(toJsonArray(result.getPackedClasses())).append(",\n");
+        json.append("    \"codeLoaderDetails\": ").append(toJsonArray(result.getDexLoadingDetails()));
+
+        ApkAnalysisDetails details = result.getAnalysisDetails();
+        if (details != null && details.getBaseDir() != null) {
+            json.append(",\n    \"unpackerDir\": ").append(quote(details.getBaseDir().getAbsolutePath()));
+            json.append(",\n    \"unpackerMainClass\": ").append(quote(details.getFullyQualifiedClassName()));
+        }
+        if (result.getError() != null) {
+            json.append(",\n    \"error\": ").append(quote(result.getError()));
+        }
+
+        // The APK itself is the first layer and is already described above
+        if (!layers.isEmpty() && layers.get(0).getOutcome() != null) {
+            json.append(",\n    \"unpackerOutcome\": ").append(quote(layers.get(0).getOutcome().name()));
+        }
+        if (layers.size() > 1) {
+            json.append(",\n    \"layers\": [");
+            for (int i = 1; i < layers.size(); i++) {
+                json.append(i == 1 ? "\n" : ",\n").append(toJson(layers.get(i)));
+            }
+            json.append("\n    ]");
+        }
+        json.append("\n}\n");
+
+        try (FileWriter writer = new FileWriter(resultFile, StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+    }
+
+    private static String toJson(LayerUnpacker.Layer layer) {
+        TriageResult result = layer.getResult();
+        StringBuilder json = new StringBuilder("        {");
+        json.append("\"payload\": ").append(quote(layer.getFile().getAbsolutePath()));
+        json.append(", \"sha256\": ").append(quote(layer.getSha256()));
+        json.append(", \"depth\": ").append(layer.getDepth());
+        json.append(", \"droppedBy\": ").append(quote(layer.getParent().getFile().getAbsolutePath()));
+        json.append(", \"verdict\": ").append(quote(result.getVerdict().name()));
+        json.append(", \"missingClasses\": ").append(toJsonArray(result.getPackedClasses()));
+        if (layer.getOutcome() != null) {
+            json.append(", \"unpackerOutcome\": ").append(quote(layer.getOutcome().name()));
+        }
+        ApkAnalysisDetails details = result.getAnalysisDetails();
+        if (details != null && details.getBaseDir() != null) {
+            json.append(", \"unpackerDir\": ").append(quote(details.getBaseDir().getAbsolutePath()));
+        }
+        if (result.getError() != null) {
+            json.append(", \"error\": ").append(quote(result.getError()));
+        }
+        return json.append("}").toString();
+    }
+
+    private static String toJsonArray(List<String> values) {
+        return values.stream().map(BatchTriage::quote).collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private static String quote(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
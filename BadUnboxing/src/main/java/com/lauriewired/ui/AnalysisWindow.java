@@ -7,21 +7,18 @@ import java.awt.Font;
 import java.awt.Insets;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.io.BufferedReader;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Enumeration;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
 
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
@@ -44,10 +41,13 @@ import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
 
 import com.lauriewired.analyzer.ApkAnalysisDetails;
+import com.lauriewired.analyzer.ApkTriage;
 import com.lauriewired.analyzer.DynamicDexLoaderDetection;
-import com.lauriewired.analyzer.JadxUtils;
-import com.lauriewired.analyzer.UnpackerGenerator;
-import jadx.api.JadxDecompiler;
+import com.lauriewired.analyzer.ExecutionLimits;
+import com.lauriewired.analyzer.LayerUnpacker;
+import com.lauriewired.analyzer.TriageResult;
+import com.lauriewired.analyzer.UnpackerRunner;
+import com.lauriewired.analyzer.UnpackerWatchdog;
 
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
@@ -57,17 +57,35 @@ import org.slf4j.LoggerFactory;
 
 public class AnalysisWindow {
     private static final Logger logger = LoggerFactory.getLogger(AnalysisWindow.class);
-    private static JTree directoryTree;
-    private static JTree apkDetailsTree;
-    private static DefaultMutableTreeNode rootNode;
-    private static String currentFilePath;
-    private static RSyntaxTextArea rightPanelEditorPane;
-    private static JScrollPane apkDetailsScrollPane;
-    private static CustomProgressBar progressBar;
-    private static String pathToUnpacker;
-    private static ApkAnalysisDetails apkAnalysisDetails;
+
+    // Multi-stage packers seen so far use three or four
+    private static final int MAX_LAYER_DEPTH = Integer.getInteger("badunboxing.layers.depth", 4);
+    private static final int LAYER_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    // Each window owns its state, so one analysis never sees another's trees or results
+    private JTree directoryTree;
+    private JTree apkDetailsTree;
+    private DefaultMutableTreeNode rootNode;
+    private String currentFilePath;
+    private RSyntaxTextArea rightPanelEditorPane;
+    private JScrollPane apkDetailsScrollPane;
+    private CustomProgressBar progressBar;
+    private String pathToUnpacker;
+    private ApkAnalysisDetails apkAnalysisDetails;
+    private volatile TriageResult triageResult;
+    private volatile UnpackerRunner unpackerRunner;
+    private SwingWorker<?, Void> currentExecution;
+    // Set while a worker is in doInBackground, a cancelled worker is done long before code that ignores interrupts returns
+    private volatile Thread executionThread;
+    private UnpackerWatchdog currentWatchdog;
+    private boolean currentExecutionSupervised;
+    private PrintStream console;
 
     public static void show(JFrame frame, String apkFilePath) {
+        new AnalysisWindow().display(frame, apkFilePath);
+    }
+
+    private void display(JFrame frame, String apkFilePath) {
         frame.setExtendedState(JFrame.MAXIMIZED_BOTH);  // Maximize the window
         frame.setVisible(true);
     
@@ -179,10 +197,35 @@ public class AnalysisWindow {
         textArea.setBackground(new Color(30, 30, 30));
         textArea.setForeground(new Color(230, 230, 230));
     
-        // Redirect the console output to the text area
-        PrintStream printStream = new PrintStream(new TextAreaOutputStream(textArea));
-        System.setOut(printStream);
-        System.setErr(printStream);
+        // Redirect the console output to the text area, everything printed here shares one stream so it stays in order
+        console = new PrintStream(new TextAreaOutputStream(textArea), true);
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        System.setOut(console);
+        System.setErr(console);
+
+        // Closing the console removes its spill file, whatever is printed after that goes back to the terminal
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeConsole();
+            }
+
+            @Override
+            public void windowClosed(WindowEvent e) {
+                closeConsole();
+            }
+
+            private void closeConsole() {
+                if (System.out == console) {
+                    System.setOut(originalOut);
+                }
+                if (System.err == console) {
+                    System.setErr(originalErr);
+                }
+                console.close();
+            }
+        });
     
         // Create a split pane for the right side
         JSplitPane rightSplitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, rightPanelContainer, new JScrollPane(textArea));
@@ -209,26 +252,41 @@ public class AnalysisWindow {
         fileMenu.add(saveMenuItem);
     
         JMenu runMenu = new JMenu("Run");
-        // Create the "Execute" menu item
+        // Create the "Execute" menu item, runs in a separate JVM under the execution limits
         JMenuItem executeMenuItem = new JMenuItem("Execute");
         executeMenuItem.setMargin(new Insets(5, 10, 5, 10));
         executeMenuItem.addActionListener(e -> {
-            int response = JOptionPane.showOptionDialog(
-                frame,
-                "Are you sure? This should only be executed in a secure malware analysis environment.",
-                "Confirm Execution",
-                JOptionPane.YES_NO_OPTION,
-                JOptionPane.WARNING_MESSAGE,
-                null,
-                new String[]{"Continue", "Cancel"},
-                "Cancel"
-            );
-            if (response == JOptionPane.YES_OPTION) {
-                executeCode(rootNode, textArea);
+            if (confirmExecution(frame)) {
+                executeCode(true);
             }
         });
         runMenu.add(executeMenuItem);
 
+        // Faster to iterate with, but nothing stops it if it never returns, and only one window can run in-process at a time
+        JMenuItem executeInProcessMenuItem = new JMenuItem("Execute In-Process");
+        executeInProcessMenuItem.setMargin(new Insets(5, 10, 5, 10));
+        executeInProcessMenuItem.addActionListener(e -> {
+            if (confirmExecution(frame)) {
+                executeCode(false);
+            }
+        });
+        runMenu.add(executeInProcessMenuItem);
+
+        JMenuItem stopMenuItem = new JMenuItem("Stop");
+        stopMenuItem.setMargin(new Insets(5, 10, 5, 10));
+        stopMenuItem.addActionListener(e -> stopExecution());
+        runMenu.add(stopMenuItem);
+
+        // Runs every unpacker it can generate, one dropped layer after another
+        JMenuItem unpackLayersMenuItem = new JMenuItem("Unpack All Layers");
+        unpackLayersMenuItem.setMargin(new Insets(5, 10, 5, 10));
+        unpackLayersMenuItem.addActionListener(e -> {
+            if (confirmExecution(frame)) {
+                unpackLayers();
+            }
+        });
+        runMenu.add(unpackLayersMenuItem);
+
         menuBar.add(fileMenu);
         menuBar.add(runMenu);
         frame.setJMenuBar(menuBar);
@@ -245,7 +303,7 @@ public class AnalysisWindow {
         downButton.addActionListener(e -> findNextOccurrence("BadUnboxing"));
     }
 
-    private static void addDirectoryTreeSelectionListener() {
+    private void addDirectoryTreeSelectionListener() {
         directoryTree.addTreeSelectionListener(new TreeSelectionListener() {
             @Override
             public void valueChanged(TreeSelectionEvent e) {
@@ -278,7 +336,7 @@ public class AnalysisWindow {
         });
     }
     
-    private static void addRightPanelEditorPaneKeyListener() {
+    private void addRightPanelEditorPaneKeyListener() {
         rightPanelEditorPane.addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
@@ -289,112 +347,271 @@ public class AnalysisWindow {
         });
     }
     
-    private static void executeCode(DefaultMutableTreeNode rootNode, JTextArea textArea) {
-        try {
-            // Directory containing the generated Java files (set after APK analysis)
-            File compilationDir = new File(pathToUnpacker).getParentFile();
-            File sourceDir = compilationDir.getParentFile();
-
-            // Get all java files in the directory
-            File[] javaFiles = compilationDir.listFiles((dir, name) -> name.endsWith(".java"));
-            if (javaFiles == null || javaFiles.length == 0) {
-                textArea.append("No Java files found to compile.\n");
-                return;
-            }
-            
-            // Convert the file paths to a format suitable for the javac command
-            List<String> filePaths = Arrays.stream(javaFiles)
-                                        .map(File::getAbsolutePath)
-                                        .collect(Collectors.toList());
-
-            // Prepare command list
-            List<String> command = new ArrayList<>();
-            command.add("javac");
-            command.addAll(filePaths);
-
-            // Execute the javac command
-            ProcessBuilder compileProcessBuilder = new ProcessBuilder(command);
-            compileProcessBuilder.directory(compilationDir);
-            Process compileProcess = compileProcessBuilder.start();
-
-            // Redirect compilation output
-            redirectProcessOutput(compileProcess, textArea);
-            
-            compileProcess.waitFor();
-
-            if (compileProcess.exitValue() != 0) {
-                textArea.append("Compilation failed.\n");
-                return;
-            }
+    private boolean confirmExecution(JFrame frame) {
+        int response = JOptionPane.showOptionDialog(
+            frame,
+            "Are you sure? This should only be executed in a secure malware analysis environment.",
+            "Confirm Execution",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.WARNING_MESSAGE,
+            null,
+            new String[]{"Continue", "Cancel"},
+            "Cancel"
+        );
+        return response == JOptionPane.YES_OPTION;
+    }
 
-            // Execute the main unpacker class
-            String mainClass = apkAnalysisDetails.getFullyQualifiedClassName();
-            ProcessBuilder runProcessBuilder = new ProcessBuilder(
-                    "java", "-cp", sourceDir.getAbsolutePath(), mainClass);
-            runProcessBuilder.directory(sourceDir);
+    private void executeCode(boolean supervised) {
+        if (!canStartExecution()) {
+            return;
+        }
+        if (!hasUnpacker()) {
+            console.println("No Java unpacker was generated for this APK.");
+            return;
+        }
 
-            // Log the command being executed
-            String commandString = String.join(" ", runProcessBuilder.command());
-            logger.info("Running execution command: " + commandString);
-            textArea.append("Running execution command: " + commandString + "\n");
-            progressBar.setString("Executing");
-            progressBar.setTextColor(Color.ORANGE);
+        UnpackerWatchdog watchdog = new UnpackerWatchdog(ExecutionLimits.fromSystemProperties());
+        progressBar.setString("Compiling");
+        progressBar.setTextColor(Color.ORANGE);
+        DirectoryTreeWatcher artifactWatcher = startArtifactWatcher();
 
-            Process runProcess = runProcessBuilder.start();
+        SwingWorker<UnpackerWatchdog.Outcome, Void> worker = new SwingWorker<UnpackerWatchdog.Outcome, Void>() {
+            @Override
+            protected UnpackerWatchdog.Outcome doInBackground() throws Exception {
+                executionThread = Thread.currentThread();
+                try {
+                    // The whole generated src tree, the unpacker's package directory is only one part of it
+                    File sourceDir = new File(apkAnalysisDetails.getBaseDir(), "src");
+                    UnpackerRunner runner = unpackerRunner;
+                    if (runner == null || !runner.getSourceDir().equals(sourceDir.getAbsoluteFile())) {
+                        runner = new UnpackerRunner(sourceDir);
+                        unpackerRunner = runner;
+                    }
 
-            // Redirect execution output
-            redirectProcessOutput(runProcess, textArea);
+                    if (!runner.compile(console)) {
+                        console.println("Compilation failed.");
+                        return null;
+                    }
 
-            runProcess.waitFor();
+                    // Execute the main unpacker class
+                    String mainClass = apkAnalysisDetails.getFullyQualifiedClassName();
+                    logger.info("Running " + mainClass + " from " + sourceDir.getAbsolutePath());
+                    console.println("Running " + mainClass + " from " + sourceDir.getAbsolutePath());
+                    SwingUtilities.invokeLater(() -> progressBar.setString("Executing"));
 
-            if (runProcess.exitValue() != 0) {
-                logger.error("Execution failed");
-                progressBar.setString("Error");
-                progressBar.setTextColor(Color.RED);
-            } else {
-                logger.info("Completed execution");
-                progressBar.setString("Complete");
-                progressBar.setTextColor(Color.WHITE);
-                updateDirectoryTree(apkAnalysisDetails.getBaseDir());
-                ((DefaultTreeModel) directoryTree.getModel()).reload(rootNode);
-                displayUnpackerFile();
-                logger.info("File tree updated with dynamic artifacts directory");
+                    if (supervised) {
+                        return runner.runSupervised(mainClass, watchdog, console);
+                    }
+                    return runInProcess(runner, mainClass);
+                } finally {
+                    executionThread = null;
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (artifactWatcher != null) {
+                    artifactWatcher.close();
+                }
+
+                UnpackerWatchdog.Outcome outcome;
+                try {
+                    outcome = get();
+                } catch (CancellationException e) {
+                    outcome = UnpackerWatchdog.Outcome.CANCELLED;
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    cause.printStackTrace();
+                    logger.error("Error executing code: " + cause.getMessage());
+                    console.println("Error executing code: " + cause.getMessage());
+                    progressBar.setString("Error");
+                    progressBar.setTextColor(Color.RED);
+                    return;
+                }
+
+                if (outcome == null) {
+                    progressBar.setString("Error");
+                    progressBar.setTextColor(Color.RED);
+                    return;
+                }
+                showExecutionOutcome(outcome, artifactWatcher != null);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            logger.error("Error executing code: " + e.getMessage());
-            textArea.append("Error executing code: " + e.getMessage() + "\n");
-            progressBar.setString("Error");
-            progressBar.setTextColor(Color.RED);
+        };
+
+        currentWatchdog = watchdog;
+        currentExecution = worker;
+        currentExecutionSupervised = supervised;
+        worker.execute();
+    }
+
+    private UnpackerWatchdog.Outcome runInProcess(UnpackerRunner runner, String mainClass) throws Exception {
+        try {
+            runner.run(mainClass, console);
+            return UnpackerWatchdog.Outcome.COMPLETED;
+        } catch (InvocationTargetException e) {
+            // Thrown by the unpacker itself, print it the way the JVM would have
+            e.getCause().printStackTrace(console);
+            return e.getCause() instanceof OutOfMemoryError ? UnpackerWatchdog.Outcome.OUT_OF_MEMORY : UnpackerWatchdog.Outcome.CRASHED;
         }
     }
 
-    private static void redirectProcessOutput(Process process, JTextArea textArea) {
-        new Thread(() -> {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    textArea.append(line + "\n");
+    private void unpackLayers() {
+        if (!canStartExecution()) {
+            return;
+        }
+        if (triageResult == null || triageResult.getVerdict() != TriageResult.Verdict.JAVA_LOADER) {
+            console.println("No Java unpacker to start from.");
+            return;
+        }
+
+        progressBar.setString("Unpacking layers");
+        progressBar.setTextColor(Color.ORANGE);
+        DirectoryTreeWatcher artifactWatcher = startArtifactWatcher();
+
+        SwingWorker<List<LayerUnpacker.Layer>, Void> worker = new SwingWorker<List<LayerUnpacker.Layer>, Void>() {
+            @Override
+            protected List<LayerUnpacker.Layer> doInBackground() throws Exception {
+                executionThread = Thread.currentThread();
+                try {
+                    return LayerUnpacker.unpack(triageResult, DynamicDexLoaderDetection.DetectionMode.BYTECODE,
+                            MAX_LAYER_DEPTH, LAYER_WORKERS, ExecutionLimits.fromSystemProperties());
+                } finally {
+                    executionThread = null;
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
             }
-        }).start();
 
-        new Thread(() -> {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    textArea.append(line + "\n");
+            @Override
+            protected void done() {
+                if (artifactWatcher != null) {
+                    artifactWatcher.close();
+                } else if (hasUnpacker()) {
+                    updateDirectoryTree(apkAnalysisDetails.getBaseDir());
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
+
+                List<LayerUnpacker.Layer> layers;
+                try {
+                    layers = get();
+                } catch (CancellationException e) {
+                    console.println("Layer unpacking cancelled");
+                    progressBar.setString("Cancelled");
+                    progressBar.setTextColor(Color.ORANGE);
+                    return;
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    logger.error("Error unpacking layers", cause);
+                    console.println("Error unpacking layers: " + cause.getMessage());
+                    progressBar.setString("Error");
+                    progressBar.setTextColor(Color.RED);
+                    return;
+                }
+
+                console.println("Found " + (layers.size() - 1) + " layers");
+                for (LayerUnpacker.Layer layer : layers) {
+                    StringBuilder line = new StringBuilder();
+                    for (int i = 0; i < layer.getDepth(); i++) {
+                        line.append("  ");
+                    }
+                    line.append(layer.getFile().getName()).append(": ").append(layer.getResult().getVerdict());
+                    if (layer.getOutcome() != null) {
+                        line.append(", unpacker ").append(layer.getOutcome());
+                    }
+                    console.println(line);
+                }
+                progressBar.setString("Complete");
+                progressBar.setTextColor(Color.WHITE);
             }
-        }).start();
+        };
+
+        currentWatchdog = null;
+        currentExecution = worker;
+        currentExecutionSupervised = false;
+        worker.execute();
     }
 
+    // Stopped runs count until their worker is back, an in-process unpacker that ignores the interrupt keeps its thread
+    private boolean canStartExecution() {
+        if (currentExecution != null && !currentExecution.isDone()) {
+            console.println("The unpacker is still running, stop it first.");
+            return false;
+        }
+        if (executionThread != null) {
+            console.println("The stopped unpacker hasn't returned yet, try again once it has.");
+            return false;
+        }
+        return true;
+    }
+
+    // A supervised run gets a chance to exit before it's killed, in-process code is interrupted and has to notice
+    private void stopExecution() {
+        if (currentExecution == null || currentExecution.isDone()) {
+            return;
+        }
+        logger.info("Stopping unpacker execution");
+        if (currentWatchdog != null) {
+            currentWatchdog.cancel();
+        }
+        if (!currentExecutionSupervised) {
+            currentExecution.cancel(true);
+            // Whatever the stopped run still holds stays with it, the next run starts from a new runner
+            unpackerRunner = null;
+        }
+    }
+
+    private boolean hasUnpacker() {
+        return apkAnalysisDetails != null && apkAnalysisDetails.getBaseDir() != null;
+    }
+
+    // Files show up in the tree as the unpacker writes them, so there's no rescan of the output afterwards
+    private DirectoryTreeWatcher startArtifactWatcher() {
+        if (!hasUnpacker()) {
+            return null;
+        }
+        try {
+            return DirectoryTreeWatcher.start(directoryTree, apkAnalysisDetails.getBaseDir());
+        } catch (IOException e) {
+            logger.warn("Can't watch " + apkAnalysisDetails.getBaseDir() + ", the tree will be rebuilt after execution", e);
+            return null;
+        }
+    }
+
+    private void showExecutionOutcome(UnpackerWatchdog.Outcome outcome, boolean treeWatched) {
+        console.println("Unpacker finished: " + outcome);
+        switch (outcome) {
+            case COMPLETED:
+                logger.info("Completed execution");
+                progressBar.setString("Complete");
+                progressBar.setTextColor(Color.WHITE);
+                break;
+            case TIMEOUT:
+                logger.error("Execution timed out");
+                progressBar.setString("Timed out");
+                progressBar.setTextColor(Color.RED);
+                break;
+            case OUT_OF_MEMORY:
+                logger.error("Execution ran out of memory");
+                progressBar.setString("Out of memory");
+                progressBar.setTextColor(Color.RED);
+                break;
+            case CANCELLED:
+                logger.info("Execution cancelled");
+                progressBar.setString("Cancelled");
+                progressBar.setTextColor(Color.ORANGE);
+                break;
+            default:
+                logger.error("Execution failed");
+                progressBar.setString("Error");
+                progressBar.setTextColor(Color.RED);
+        }
+
+        // Whatever the unpacker dumped before it stopped is still worth looking at
+        if (!treeWatched) {
+            updateDirectoryTree(apkAnalysisDetails.getBaseDir());
+            logger.info("File tree updated with dynamic artifacts directory");
+        }
+        displayUnpackerFile();
+    }
 
-    private static void findNextOccurrence(String searchString) {
+    private void findNextOccurrence(String searchString) {
         String content = rightPanelEditorPane.getText();
         int currentPosition = rightPanelEditorPane.getCaretPosition();
         int nextPosition = content.indexOf(searchString, currentPosition);
@@ -412,7 +629,7 @@ public class AnalysisWindow {
         }
     }
     
-    private static void findPreviousOccurrence(String searchString) {
+    private void findPreviousOccurrence(String searchString) {
         String content = rightPanelEditorPane.getText();
         int currentPosition = rightPanelEditorPane.getCaretPosition();
         int previousPosition = content.lastIndexOf(searchString, currentPosition - searchString.length() - 1);
@@ -430,7 +647,7 @@ public class AnalysisWindow {
         }
     }
     
-    private static void saveFile() {
+    private void saveFile() {
         if (currentFilePath != null) {
             try {
                 Files.write(Paths.get(currentFilePath), rightPanelEditorPane.getText().getBytes());
@@ -444,80 +661,58 @@ public class AnalysisWindow {
     }
 
 
-    private static String getFilePath(DefaultMutableTreeNode node) {
+    private String getFilePath(DefaultMutableTreeNode node) {
         FileNode fileNode = (FileNode) node.getUserObject();
         return fileNode.getFile().getAbsolutePath();
     }
 
-    private static List<String> isPacked(String apkFilePath, JadxDecompiler jadx) {
-        List<String> packedClasses = new ArrayList<>();
-        try {
-            // Extract and parse AndroidManifest.xml
-            Set<String> manifestClasses = JadxUtils.getManifestClasses(apkFilePath, jadx);
-
-            // Get classes from dex files
-            Set<String> dexClasses = JadxUtils.getDexClasses(apkFilePath, jadx);
-
-            // Check if there are any classes in the manifest that are not in the dex files
-            for (String className : manifestClasses) {
-                if (!dexClasses.contains(className)) {
-                    logger.info("Class {} found in manifest but not in dex files", className);
-                    packedClasses.add(className);
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error checking if APK is packed", e);
-        }
-        return packedClasses; // Return the list of packed classes
-    }
-
     // Modify the analyzeApk method to update the progress bar
-    private static void analyzeApk(String apkFilePath, DefaultMutableTreeNode apkDetailsRoot) {
+    private void analyzeApk(String apkFilePath, DefaultMutableTreeNode apkDetailsRoot) {
         SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
             @Override
             protected Void doInBackground() {
-                logger.info("Loading APK");
-                JadxDecompiler jadx = JadxUtils.loadJadx(apkFilePath);
-        
-                List<String> packedClasses = isPacked(apkFilePath, jadx);
-                if (!packedClasses.isEmpty()) {
-                    logger.info("APK is packed");
+                TriageResult result = ApkTriage.triage(apkFilePath);
+                triageResult = result;
 
+                if (!result.getPackedClasses().isEmpty()) {
                     DefaultMutableTreeNode missingClassesNode = new DefaultMutableTreeNode("Missing Classes");
                     apkDetailsRoot.add(missingClassesNode);
-                    for (String className : packedClasses) {
+                    for (String className : result.getPackedClasses()) {
                         missingClassesNode.add(new DefaultMutableTreeNode(className));
                     }
-        
-                    List<String> dexLoadingDetails = DynamicDexLoaderDetection.getJavaDexLoadingDetails(jadx);
-                    if (!dexLoadingDetails.isEmpty()) {
-                        logger.info("Generating Java unpacker stub");
+                }
+
+                switch (result.getVerdict()) {
+                    case JAVA_LOADER: {
                         DefaultMutableTreeNode classLoaderNode = new DefaultMutableTreeNode("Code Loader Details");
                         classLoaderNode.add(new DefaultMutableTreeNode("Type: Java"));
-                        
-                        for (String detail : dexLoadingDetails) {
+
+                        for (String detail : result.getDexLoadingDetails()) {
                             classLoaderNode.add(new DefaultMutableTreeNode(detail));
                         }
-                        
+
                         apkDetailsRoot.add(classLoaderNode);
-                    
-                        apkAnalysisDetails = UnpackerGenerator.generateJava(jadx, apkFilePath);
-                        if (apkAnalysisDetails.getBaseDir() != null) {
+
+                        apkAnalysisDetails = result.getAnalysisDetails();
+                        if (apkAnalysisDetails != null && apkAnalysisDetails.getBaseDir() != null) {
                             SwingUtilities.invokeLater(() -> updateDirectoryTree(apkAnalysisDetails.getBaseDir()));
-                        } else {
-                            logger.error("Error generating Java unpacker code.");
                         }
-                    } else {
-                        logger.info("Could not find code loader in Java. Probable native packer detected.");
+                        break;
+                    }
+                    case NATIVE_LOADER: {
                         DefaultMutableTreeNode classLoaderNode = new DefaultMutableTreeNode("Code Loader Details");
                         classLoaderNode.add(new DefaultMutableTreeNode("Type: Native"));
                         apkDetailsRoot.add(classLoaderNode);
+                        break;
                     }
-                } else {
-                    logger.info("APK is not packed");
-                    DefaultMutableTreeNode packerNode = new DefaultMutableTreeNode("Packer");
-                    packerNode.add(new DefaultMutableTreeNode("Not Packed"));
-                    apkDetailsRoot.add(packerNode);
+                    case NOT_PACKED: {
+                        DefaultMutableTreeNode packerNode = new DefaultMutableTreeNode("Packer");
+                        packerNode.add(new DefaultMutableTreeNode("Not Packed"));
+                        apkDetailsRoot.add(packerNode);
+                        break;
+                    }
+                    default:
+                        apkDetailsRoot.add(new DefaultMutableTreeNode("Error: " + result.getError()));
                 }
 
                 return null;
@@ -538,9 +733,15 @@ public class AnalysisWindow {
         worker.execute();
     }
 
-    private static void displayUnpackerFile() {
+    private void displayUnpackerFile() {
         DefaultMutableTreeNode root = (DefaultMutableTreeNode) directoryTree.getModel().getRoot();
-        DefaultMutableTreeNode targetNode = findNode(root, "Unpacker_", ".java");
+        DefaultMutableTreeNode targetNode = null;
+        if (apkAnalysisDetails != null && apkAnalysisDetails.getBaseDir() != null) {
+            // Straight to the generated file, searching the tree would list every directory in it
+            File unpackerFile = new File(new File(apkAnalysisDetails.getBaseDir(), "src"),
+                    apkAnalysisDetails.getFullyQualifiedClassName().replace('.', File.separatorChar) + ".java");
+            targetNode = DirectoryTreeModel.findNode(root, unpackerFile);
+        }
 
         if (targetNode != null) {
             String filePath = getFilePath(targetNode);
@@ -573,22 +774,7 @@ public class AnalysisWindow {
         }
     }
 
-    private static DefaultMutableTreeNode findNode(DefaultMutableTreeNode root, String prefix, String suffix) {
-        Enumeration<?> e = root.breadthFirstEnumeration();
-        while (e.hasMoreElements()) {
-            DefaultMutableTreeNode node = (DefaultMutableTreeNode) e.nextElement();
-            if (node.getUserObject() instanceof FileNode) {
-                FileNode fileNode = (FileNode) node.getUserObject();
-                String fileName = fileNode.getFile().getName();
-                if (fileName.startsWith(prefix) && fileName.endsWith(suffix)) {
-                    return node;
-                }
-            }
-        }
-        return null;
-    }
-
-    private static void updateDirectoryTree(File baseDir) {
+    private void updateDirectoryTree(File baseDir) {
         DefaultTreeModel treeModel = DirectoryTreeModel.buildTreeModel(baseDir);
         directoryTree.setModel(treeModel);
     }
@@ -2,46 +2,181 @@ package com.lauriewired.ui;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
 import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
 
+/*
+ * Trees for the directories an analysis writes to
+ * Directories are only listed the first time their children are asked for, which JTree does when one is expanded,
+ *  so the tree opens at the same speed however much an unpacker dropped. Listings are kept after that,
+ *  DirectoryTreeWatcher keeps them current while something writes there
+ * Nothing here forces a listing except the children accessors, don't walk the tree with breadth or depth first enumerations
+ */
 public class DirectoryTreeModel {
+    // Directories first, then by name
+    static final Comparator<FileNode> FILE_ORDER = Comparator
+        .comparing((FileNode node) -> !node.isDirectory())
+        .thenComparing(FileNode::toString, String.CASE_INSENSITIVE_ORDER)
+        .thenComparing(FileNode::toString);
 
     public static DefaultTreeModel buildTreeModel(File root) {
-        DefaultMutableTreeNode rootNode = new DefaultMutableTreeNode(new FileNode(root));
-        buildTreeNodes(rootNode, root);
-        return new DefaultTreeModel(rootNode);
-    }
-
-    private static void buildTreeNodes(DefaultMutableTreeNode parentNode, File file) {
-        if (file.isDirectory()) {
-            for (File child : file.listFiles()) {
-                DefaultMutableTreeNode childNode = new DefaultMutableTreeNode(new FileNode(child));
-                if (child.isDirectory()) {
-                    parentNode.add(childNode);
-                    buildTreeNodes(childNode, child);
-                } else {
-                    parentNode.add(new DefaultMutableTreeNode(new FileNode(child)));
-                }
+        return new DefaultTreeModel(buildNode(root));
+    }
+
+    // A node for file, a directory's children are listed when they're first needed
+    static DefaultMutableTreeNode buildNode(File file) {
+        FileNode fileNode = new FileNode(file);
+        return fileNode.isDirectory() ? new DirectoryNode(fileNode) : new DefaultMutableTreeNode(fileNode);
+    }
+
+    // Lists only the directories on the way down, null when file isn't under root or isn't in the tree
+    static DefaultMutableTreeNode findNode(DefaultMutableTreeNode root, File file) {
+        Path rootPath = ((FileNode) root.getUserObject()).getFile().toPath().toAbsolutePath().normalize();
+        Path target = file.toPath().toAbsolutePath().normalize();
+        if (target.equals(rootPath)) {
+            return root;
+        }
+        if (!target.startsWith(rootPath)) {
+            return null;
+        }
+
+        DefaultMutableTreeNode node = root;
+        for (Path name : rootPath.relativize(target)) {
+            node = getChild(node, name.toString());
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    // Lists parent if it wasn't yet
+    static DefaultMutableTreeNode getChild(DefaultMutableTreeNode parent, String name) {
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            DefaultMutableTreeNode child = (DefaultMutableTreeNode) parent.getChildAt(i);
+            if (child.getUserObject() instanceof FileNode
+                    && ((FileNode) child.getUserObject()).getFile().getName().equals(name)) {
+                return child;
             }
-        } else {
-            parentNode.add(new DefaultMutableTreeNode(new FileNode(file)));
         }
+        return null;
     }
 }
 
 class FileNode {
     private final File file;
+    private final boolean directory; // Read once, the tree sorts on it
 
     public FileNode(File file) {
         this.file = file;
+        this.directory = file.isDirectory();
     }
 
     public File getFile() {
         return file;
     }
 
+    public boolean isDirectory() {
+        return directory;
+    }
+
     @Override
     public String toString() {
         return file.getName(); // Display only the name
     }
 }
+
+/*
+ * A directory whose children are listed and sorted on first access
+ * Only the EDT touches it, like the rest of the model
+ */
+class DirectoryNode extends DefaultMutableTreeNode {
+    private boolean loaded;
+
+    DirectoryNode(FileNode fileNode) {
+        super(fileNode, true);
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    // Where node goes to keep the children sorted
+    int getInsertionIndex(DefaultMutableTreeNode node) {
+        FileNode fileNode = (FileNode) node.getUserObject();
+        int low = 0;
+        int high = getChildCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            FileNode midNode = (FileNode) ((DefaultMutableTreeNode) getChildAt(mid)).getUserObject();
+            if (DirectoryTreeModel.FILE_ORDER.compare(midNode, fileNode) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        File[] files = ((FileNode) getUserObject()).getFile().listFiles();
+        if (files == null) {
+            return; // Deleted or unreadable by the time we got here
+        }
+        FileNode[] fileNodes = new FileNode[files.length];
+        for (int i = 0; i < files.length; i++) {
+            fileNodes[i] = new FileNode(files[i]);
+        }
+        Arrays.sort(fileNodes, DirectoryTreeModel.FILE_ORDER);
+        for (FileNode fileNode : fileNodes) {
+            add(fileNode.isDirectory() ? new DirectoryNode(fileNode) : new DefaultMutableTreeNode(fileNode));
+        }
+    }
+
+    // Whether it's empty isn't known before it's listed, and an empty directory should still look like one
+    @Override
+    public boolean isLeaf() {
+        return false;
+    }
+
+    @Override
+    public int getChildCount() {
+        load();
+        return super.getChildCount();
+    }
+
+    @Override
+    public TreeNode getChildAt(int index) {
+        load();
+        return super.getChildAt(index);
+    }
+
+    @Override
+    public int getIndex(TreeNode child) {
+        load();
+        return super.getIndex(child);
+    }
+
+    @Override
+    public Enumeration<TreeNode> children() {
+        load();
+        return super.children();
+    }
+
+    // Listed first, otherwise the listing would add the same file again
+    @Override
+    public void insert(MutableTreeNode child, int index) {
+        load();
+        super.insert(child, index);
+    }
+}
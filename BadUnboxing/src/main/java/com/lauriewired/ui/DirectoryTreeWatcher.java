@@ -0,0 +1,330 @@
+package com.lauriewired.ui;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JTree;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Keeps a tree built by DirectoryTreeModel in sync with the files under its root while something writes there
+ * Events are collected on a background thread and checked against the disk there, then applied to the model
+ *  on the EDT in batches, so only the nodes that changed are inserted, removed or repainted
+ * Only directories the tree has listed are watched, nothing walks the directory tree. Others are registered
+ *  right before they're expanded, and pick up whatever is there when they're listed
+ * If the watch service drops events (OVERFLOW) the tree is rebuilt once instead
+ */
+class DirectoryTreeWatcher implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryTreeWatcher.class);
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final JTree tree;
+    private final Path rootDir;
+    private final WatchService watchService;
+    private final Set<Path> registeredDirs = ConcurrentHashMap.newKeySet();
+    private final Thread thread;
+    private final TreeWillExpandListener expansionListener;
+    private volatile boolean running = true;
+
+    // Only touched on the EDT, like the model itself. Nodes are cached as they're looked up
+    private DefaultTreeModel model;
+    private final Map<Path, DefaultMutableTreeNode> nodes = new HashMap<>();
+
+    // Where a path ended up once all its events in a batch were seen
+    private static class Change {
+        private final Path path;
+        private final boolean exists;
+
+        private Change(Path path, boolean exists) {
+            this.path = path;
+            this.exists = exists;
+        }
+    }
+
+    private DirectoryTreeWatcher(JTree tree, Path rootDir) throws IOException {
+        this.tree = tree;
+        this.rootDir = rootDir;
+        this.model = (DefaultTreeModel) tree.getModel();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.thread = new Thread(this::watch, "directory-tree-watcher");
+        this.thread.setDaemon(true);
+        this.expansionListener = new TreeWillExpandListener() {
+            @Override
+            public void treeWillExpand(TreeExpansionEvent event) {
+                Object node = event.getPath().getLastPathComponent();
+                if (node instanceof DirectoryNode) {
+                    watchDirectory((DirectoryNode) node);
+                }
+            }
+
+            @Override
+            public void treeWillCollapse(TreeExpansionEvent event) {
+            }
+        };
+    }
+
+    // Call on the EDT, the tree's model has to be the one built for rootDir
+    static DirectoryTreeWatcher start(JTree tree, File rootDir) throws IOException {
+        DirectoryTreeWatcher watcher = new DirectoryTreeWatcher(tree, rootDir.toPath().toAbsolutePath().normalize());
+        try {
+            watcher.register(watcher.rootDir);
+        } catch (IOException e) {
+            watcher.watchService.close();
+            throw e;
+        }
+        watcher.registerListed((DefaultMutableTreeNode) watcher.model.getRoot());
+        tree.addTreeWillExpandListener(watcher.expansionListener);
+        watcher.thread.start();
+        return watcher;
+    }
+
+    // Applies whatever landed before the call, the last of it reaches the tree through invokeLater
+    @Override
+    public void close() {
+        tree.removeTreeWillExpandListener(expansionListener);
+        running = false;
+        try {
+            thread.join(POLL_INTERVAL_MS * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (running) {
+                WatchKey key = watchService.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    processBatch(key);
+                }
+            }
+
+            // Pick up what was written right before we were closed
+            WatchKey key = watchService.poll();
+            if (key != null) {
+                processBatch(key);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Directory tree watcher stopped", e);
+        } finally {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("Error closing watch service", e);
+            }
+        }
+    }
+
+    // Everything already queued goes into one batch, so a burst of writes is a single trip to the EDT
+    private void processBatch(WatchKey firstKey) {
+        Set<Path> touched = new LinkedHashSet<>();
+        boolean overflow = false;
+
+        for (WatchKey key = firstKey; key != null; key = watchService.poll()) {
+            // Keys are registered on the EDT, the key knows its directory even if an event beats the bookkeeping
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow = true;
+                } else {
+                    touched.add(dir.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {
+                registeredDirs.remove(dir);
+            }
+        }
+
+        if (overflow) {
+            logger.info("Missed file events under {}, rebuilding the tree", rootDir);
+            SwingUtilities.invokeLater(this::rebuild);
+            return;
+        }
+
+        // A new directory isn't registered here, it's listed and watched once it's expanded
+        List<Change> changes = new ArrayList<>(touched.size());
+        for (Path path : touched) {
+            changes.add(new Change(path, Files.exists(path, LinkOption.NOFOLLOW_LINKS)));
+        }
+
+        if (!changes.isEmpty()) {
+            SwingUtilities.invokeLater(() -> apply(changes));
+        }
+    }
+
+    private void register(Path dir) throws IOException {
+        if (registeredDirs.add(dir)) {
+            try {
+                dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException e) {
+                registeredDirs.remove(dir);
+                throw e;
+            }
+        }
+    }
+
+    // Only goes through what's in memory, directories that were never listed are skipped with everything under them
+    private void registerListed(DefaultMutableTreeNode node) {
+        if (!isListed(node)) {
+            return;
+        }
+        Path dir = toKey(((FileNode) node.getUserObject()).getFile());
+        try {
+            register(dir);
+        } catch (IOException e) {
+            logger.warn("Error watching " + dir, e);
+            return;
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            registerListed((DefaultMutableTreeNode) node.getChildAt(i));
+        }
+    }
+
+    /*
+     * Registered before the tree lists it, so anything written after the listing comes in as an event
+     * A directory that was listed before it could be registered is compared with the disk once instead
+     */
+    private void watchDirectory(DirectoryNode node) {
+        Path dir = toKey(((FileNode) node.getUserObject()).getFile());
+        if (!dir.startsWith(rootDir) || registeredDirs.contains(dir)) {
+            return;
+        }
+        try {
+            register(dir);
+        } catch (IOException e) {
+            logger.warn("Error watching " + dir, e);
+            return;
+        }
+        if (node.isLoaded()) {
+            resync(node, dir);
+        }
+    }
+
+    private void resync(DirectoryNode node, Path dir) {
+        Set<Path> paths = new HashSet<>();
+        for (int i = 0; i < node.getChildCount(); i++) {
+            paths.add(toKey(((FileNode) ((DefaultMutableTreeNode) node.getChildAt(i)).getUserObject()).getFile()));
+        }
+        File[] files = dir.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                paths.add(toKey(file));
+            }
+        }
+
+        List<Change> changes = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            changes.add(new Change(path, Files.exists(path, LinkOption.NOFOLLOW_LINKS)));
+        }
+        apply(changes);
+    }
+
+    private void apply(List<Change> changes) {
+        for (Change change : changes) {
+            DefaultMutableTreeNode existing = findNode(change.path, false);
+
+            if (!change.exists) {
+                if (existing != null && existing.getParent() != null) {
+                    unindexNodes(existing);
+                    model.removeNodeFromParent(existing);
+                }
+            } else if (existing != null) {
+                model.nodeChanged(existing);
+            } else {
+                DefaultMutableTreeNode parent = findNode(change.path.getParent(), true);
+                if (isListed(parent)) {
+                    DefaultMutableTreeNode node = DirectoryTreeModel.buildNode(change.path.toFile());
+                    model.insertNodeInto(node, parent, ((DirectoryNode) parent).getInsertionIndex(node));
+                    nodes.put(change.path, node);
+                }
+            }
+        }
+    }
+
+    /*
+     * Only looks inside directories that are already listed, null for anything under one that isn't
+     * With createDirs, directories we never heard about (their create event was missed) are added on the way down
+     */
+    private DefaultMutableTreeNode findNode(Path path, boolean createDirs) {
+        if (path == null || !path.startsWith(rootDir)) {
+            return null;
+        }
+        if (path.equals(rootDir)) {
+            return (DefaultMutableTreeNode) model.getRoot();
+        }
+        DefaultMutableTreeNode node = nodes.get(path);
+        if (node != null) {
+            return node;
+        }
+
+        DefaultMutableTreeNode parent = findNode(path.getParent(), createDirs);
+        if (!isListed(parent)) {
+            return null;
+        }
+        node = DirectoryTreeModel.getChild(parent, path.getFileName().toString());
+        if (node == null && createDirs) {
+            node = new DirectoryNode(new FileNode(path.toFile()));
+            model.insertNodeInto(node, parent, ((DirectoryNode) parent).getInsertionIndex(node));
+        }
+        if (node != null) {
+            nodes.put(path, node);
+        }
+        return node;
+    }
+
+    private static boolean isListed(DefaultMutableTreeNode node) {
+        return node instanceof DirectoryNode && ((DirectoryNode) node).isLoaded();
+    }
+
+    private void rebuild() {
+        model = DirectoryTreeModel.buildTreeModel(rootDir.toFile());
+        tree.setModel(model);
+        nodes.clear();
+    }
+
+    // Walks only what was listed, the rest was never cached
+    private void unindexNodes(DefaultMutableTreeNode subtree) {
+        if (subtree.getUserObject() instanceof FileNode) {
+            nodes.remove(toKey(((FileNode) subtree.getUserObject()).getFile()));
+        }
+        if (isListed(subtree)) {
+            for (int i = 0; i < subtree.getChildCount(); i++) {
+                unindexNodes((DefaultMutableTreeNode) subtree.getChildAt(i));
+            }
+        }
+    }
+
+    private static Path toKey(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+}
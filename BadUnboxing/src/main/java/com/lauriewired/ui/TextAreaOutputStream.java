@@ -2,24 +2,281 @@ package com.lauriewired.ui;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import javax.swing.JTextArea;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
 
+/*
+ * Console for a JTextArea that any thread can write to as fast as it likes
+ * Output is decoded and collected here, then appended on the EDT in one batch every FLUSH_INTERVAL_MS
+ * The text area keeps the last MAX_LINES lines, older output is moved to a spill file that the first line points at,
+ *  and so is the start of a batch too big to show. Only the EDT spills, so the file is in output order
+ * Output waiting for the EDT is held to the same limits: when writers get that far ahead the oldest of it is dropped,
+ *  and the spill file and the notice say where and how much. Writers never wait, the EDT can be one of them
+ * Use one per text area, System.out and System.err included, and close it with the window to remove the spill file
+ */
 public class TextAreaOutputStream extends OutputStream {
-    private JTextArea textArea;
-    
+    private static final int FLUSH_INTERVAL_MS = 100;
+    private static final int MAX_LINES = 10000;
+    private static final int MAX_CHARS = 4 * 1024 * 1024;
+
+    private final JTextArea textArea;
+    private final Timer flushTimer;
+
+    // Guarded by this, filled by writers and emptied on the EDT
+    private final CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer undecoded = ByteBuffer.allocate(16); // The start of a character split across writes
+    private final StringBuilder pending = new StringBuilder();
+    private int pendingLines;
+    private long pendingDroppedLines; // Dropped from the front of pending since the last flush
+    private boolean flushScheduled;
+    private boolean closed;
+
+    // Only touched on the EDT
+    private Path spillFile;
+    private Writer spillWriter;
+    private boolean spillFailed;
+    private long spilledLines;
+    private long droppedLines;
+    private boolean spillEndsLine = true;
+    private int noticeLength;
+
     public TextAreaOutputStream(JTextArea textArea) {
         this.textArea = textArea;
+        this.flushTimer = new Timer(FLUSH_INTERVAL_MS, e -> flushToTextArea());
+        this.flushTimer.setRepeats(false);
+        // A coalescing timer drops a start that comes in while the last flush is still running, and nothing would restart it
+        this.flushTimer.setCoalesce(false);
     }
-    
+
     @Override
     public void write(int b) throws IOException {
-        textArea.append(String.valueOf((char) b));
-        textArea.setCaretPosition(textArea.getDocument().getLength());  // Auto scroll to bottom
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Console closed");
+        }
+
+        ByteBuffer in;
+        if (undecoded.position() > 0) {
+            undecoded.flip();
+            in = ByteBuffer.allocate(undecoded.remaining() + len);
+            in.put(undecoded).put(b, off, len).flip();
+            undecoded.clear();
+        } else {
+            in = ByteBuffer.wrap(b, off, len);
+        }
+
+        CharBuffer out = CharBuffer.allocate((int) (in.remaining() * decoder.maxCharsPerByte()) + 1);
+        decoder.decode(in, out, false);
+        undecoded.put(in);
+        out.flip();
+
+        for (int i = 0; i < out.length(); i++) {
+            if (out.charAt(i) == '\n') {
+                pendingLines++;
+            }
+        }
+        pending.append(out);
+        if (pendingLines > MAX_LINES || pending.length() > MAX_CHARS) {
+            dropOldestPending();
+        }
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flushTimer.start();
+        }
     }
-    
+
+    // Stops flushing and deletes the spill file, call on the EDT
     @Override
-    public void write(byte[] b, int off, int len) throws IOException {
-        textArea.append(new String(b, off, len));
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            pending.setLength(0);
+            pendingLines = 0;
+            pendingDroppedLines = 0;
+        }
+        flushTimer.stop();
+
+        try {
+            if (spillWriter != null) {
+                spillWriter.close();
+            }
+            if (spillFile != null) {
+                Files.deleteIfExists(spillFile);
+            }
+        } catch (IOException e) {
+            // Left for deleteOnExit
+        }
+        spillWriter = null;
+        spillFailed = true;
+    }
+
+    // Keeps the newest three quarters of the limits, so the copy is paid once per quarter of them written
+    private void dropOldestPending() {
+        int cut = Math.max(0, pending.length() - MAX_CHARS / 4 * 3);
+        for (int excessLines = pendingLines - MAX_LINES / 4 * 3; excessLines > 0; excessLines--) {
+            cut = Math.max(cut, pending.indexOf("\n", cut) + 1);
+        }
+
+        int lines = 0;
+        for (int i = 0; i < cut; i++) {
+            if (pending.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        pending.delete(0, cut);
+        pendingLines -= lines;
+        pendingDroppedLines += lines;
+    }
+
+    private void flushToTextArea() {
+        String batch;
+        int batchLines;
+        long batchDroppedLines;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            batch = pending.toString();
+            batchLines = pendingLines;
+            batchDroppedLines = pendingDroppedLines;
+            pending.setLength(0);
+            pendingLines = 0;
+            pendingDroppedLines = 0;
+            flushScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        int batchCut = makeRoom(batch, batchLines, batchDroppedLines);
+        textArea.append(batchCut == 0 ? batch : batch.substring(batchCut));
         textArea.setCaretPosition(textArea.getDocument().getLength());  // Auto scroll to bottom
+
+        try {
+            if (spillWriter != null) {
+                spillWriter.flush();
+            }
+        } catch (IOException e) {
+            spillFailed = true;
+        }
+    }
+
+    /*
+     * Moves the oldest output out so the batch fits under MAX_LINES and MAX_CHARS: lines already shown
+     *  go first, then the start of the batch. Returns how much of the batch was spilled
+     * Output dropped before the batch came in sits between the two, so everything shown goes out ahead of it
+     * The notice on the first line isn't counted, it's replaced every time something is moved out
+     */
+    private int makeRoom(String batch, int batchLines, long batchDroppedLines) {
+        Document document = textArea.getDocument();
+        Element root = document.getDefaultRootElement();
+        int noticeLines = noticeLength > 0 ? 1 : 0;
+        int shownLines = root.getElementCount() - 1 - noticeLines; // Complete lines, the last element has no newline
+
+        int cutEnd = noticeLength;
+        int batchCut = 0;
+        if (batchDroppedLines > 0) {
+            cutEnd = document.getLength();
+            shownLines = 0;
+        }
+        int excessLines = shownLines + batchLines - MAX_LINES;
+        if (excessLines > 0) {
+            int shownCut = Math.min(excessLines, shownLines);
+            if (shownCut > 0) {
+                cutEnd = root.getElement(noticeLines + shownCut - 1).getEndOffset();
+            }
+            for (int i = shownCut; i < excessLines; i++) {
+                batchCut = batch.indexOf('\n', batchCut) + 1;
+            }
+            if (batchCut > 0) {
+                cutEnd = document.getLength(); // With the unfinished line the batch starts by completing
+            }
+        }
+
+        int excessChars = (document.getLength() - cutEnd) + (batch.length() - batchCut) - MAX_CHARS;
+        if (excessChars > 0) {
+            int shownCut = Math.min(excessChars, document.getLength() - cutEnd);
+            cutEnd += shownCut;
+            batchCut += excessChars - shownCut;
+        }
+        if (cutEnd == noticeLength && batchCut == 0 && batchDroppedLines == 0) {
+            return 0;
+        }
+
+        try {
+            if (cutEnd > noticeLength) {
+                spill(document.getText(noticeLength, cutEnd - noticeLength));
+            }
+            if (batchDroppedLines > 0) {
+                droppedLines += batchDroppedLines;
+                // On a line of its own, the shown text may have ended halfway through one
+                writeSpill((spillEndsLine ? "[" : "\n[") + batchDroppedLines + " lines dropped, output came in faster than it could be shown]\n");
+            }
+            if (batchCut > 0) {
+                spill(batch.substring(0, batchCut));
+            }
+            String notice;
+            if (spillFailed) {
+                notice = "[" + (spilledLines + droppedLines) + " earlier lines dropped]\n";
+            } else if (droppedLines > 0) {
+                notice = "[" + spilledLines + " earlier lines in " + spillFile + ", " + droppedLines + " more dropped]\n";
+            } else {
+                notice = "[" + spilledLines + " earlier lines in " + spillFile + "]\n";
+            }
+            document.remove(0, cutEnd);
+            document.insertString(0, notice, null);
+            noticeLength = notice.length();
+        } catch (BadLocationException e) {
+            // Offsets come from the document itself
+            throw new IllegalStateException(e);
+        }
+        return batchCut;
+    }
+
+    // Lines are counted from the text, so cuts in the middle of a line still add up
+    private void spill(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                spilledLines++;
+            }
+        }
+        writeSpill(text);
+    }
+
+    private void writeSpill(String text) {
+        if (spillFailed) {
+            return;
+        }
+        try {
+            if (spillWriter == null) {
+                spillFile = Files.createTempFile("badunboxing-console-", ".log");
+                spillFile.toFile().deleteOnExit();
+                spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8);
+            }
+            spillWriter.write(text);
+            spillEndsLine = text.endsWith("\n");
+        } catch (IOException e) {
+            // Can't log it, the log goes through here
+            spillFailed = true;
+        }
     }
-}
\ No newline at end of file
+}
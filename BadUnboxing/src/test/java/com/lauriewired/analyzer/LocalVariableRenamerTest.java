@@ -0,0 +1,189 @@
+package com.lauriewired.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * The renamer rewrites code that has to compile again, so these pin down the cases a token walk gets wrong
+ * Renamed names end in a hash postfix, expected code writes them as arg_x#1, var_x#2, numbered by first appearance,
+ *  so two different variables with the same original name stay apart
+ */
+class LocalVariableRenamerTest {
+    private static final Pattern RENAMED = Pattern.compile("\\b((?:arg|var)_[A-Za-z0-9]+?)_[A-Za-z0-9]{8}\\b");
+
+    private static String rename(String code) {
+        StringBuilder javaCode = new StringBuilder(code);
+        LocalVariableRenamer.rename(javaCode, "com.example.Stub", new RenameMap());
+        return normalize(javaCode.toString());
+    }
+
+    private static String normalize(String code) {
+        Map<String, String> numbered = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        Matcher matcher = RENAMED.matcher(code);
+        StringBuffer output = new StringBuffer();
+        while (matcher.find()) {
+            String name = numbered.computeIfAbsent(matcher.group(), renamed ->
+                matcher.group(1) + "#" + counts.merge(matcher.group(1), 1, Integer::sum));
+            matcher.appendReplacement(output, Matcher.quoteReplacement(name));
+        }
+        matcher.appendTail(output);
+        return output.toString();
+    }
+
+    private static String inClass(String members) {
+        return "class Stub {\n" + members + "\n}\n";
+    }
+
+    @Test
+    void renamesArgumentsAndLocals() {
+        assertEquals(
+            inClass("int add(int arg_a#1, int arg_b#1) { int var_sum#1 = arg_a#1 + arg_b#1; return var_sum#1; }"),
+            rename(inClass("int add(int a, int b) { int sum = a + b; return sum; }")));
+    }
+
+    @Test
+    void leavesFieldsMembersAndCallsAlone() {
+        assertEquals(
+            inClass("int count; void set(int arg_count#1) { this.count = arg_count#1; count(); other.count = 1; }"),
+            rename(inClass("int count; void set(int count) { this.count = count; count(); other.count = 1; }")));
+    }
+
+    @Test
+    void innerDeclarationShadowsOuter() {
+        assertEquals(
+            inClass("void m(int arg_a#1) {\n"
+                + "  Runnable var_r#1 = new Runnable() { public void run() { int var_a#1 = 2; use(var_a#1); } };\n"
+                + "  use(arg_a#1);\n"
+                + "}"),
+            rename(inClass("void m(int a) {\n"
+                + "  Runnable r = new Runnable() { public void run() { int a = 2; use(a); } };\n"
+                + "  use(a);\n"
+                + "}")));
+    }
+
+    @Test
+    void siblingBlocksGetTheirOwnNames() {
+        assertEquals(
+            inClass("void m() { { int var_i#1 = 0; use(var_i#1); } { int var_i#2 = 1; use(var_i#2); } }"),
+            rename(inClass("void m() { { int i = 0; use(i); } { int i = 1; use(i); } }")));
+    }
+
+    @Test
+    void lambdaParametersEndWithTheLambda() {
+        assertEquals(
+            inClass("void m(List<String> arg_xs#1) {\n"
+                + "  arg_xs#1.forEach(var_x#1 -> use(var_x#1));\n"
+                + "  arg_xs#1.sort((var_a#1, var_b#1) -> var_a#1.compareTo(var_b#1));\n"
+                + "  arg_xs#1.removeIf((String var_s#1) -> { int var_n#1 = var_s#1.length(); return var_n#1 > 2; });\n"
+                + "  int var_x#2 = 0; use(var_x#2);\n"
+                + "}"),
+            rename(inClass("void m(List<String> xs) {\n"
+                + "  xs.forEach(x -> use(x));\n"
+                + "  xs.sort((a, b) -> a.compareTo(b));\n"
+                + "  xs.removeIf((String s) -> { int n = s.length(); return n > 2; });\n"
+                + "  int x = 0; use(x);\n"
+                + "}")));
+    }
+
+    @Test
+    void lambdaCapturesEnclosingLocals() {
+        assertEquals(
+            inClass("void m() { int var_base#1 = 1; Function<Integer, Integer> var_f#1 = var_v#1 -> var_v#1 + var_base#1; }"),
+            rename(inClass("void m() { int base = 1; Function<Integer, Integer> f = v -> v + base; }")));
+    }
+
+    @Test
+    void anonymousClassFieldsShadowEnclosingLocals() {
+        assertEquals(
+            inClass("void m() {\n"
+                + "  int var_n#1 = 1;\n"
+                + "  Object var_o#1 = new Object() { int n = 2; int get() { return n + k(); } };\n"
+                + "  use(var_n#1);\n"
+                + "}"),
+            rename(inClass("void m() {\n"
+                + "  int n = 1;\n"
+                + "  Object o = new Object() { int n = 2; int get() { return n + k(); } };\n"
+                + "  use(n);\n"
+                + "}")));
+    }
+
+    @Test
+    void forEachVariableIsScopedToTheLoop() {
+        assertEquals(
+            inClass("void m(Map<String, List<Integer>> arg_map#1) {\n"
+                + "  for (Map.Entry<String, List<Integer>> var_e#1 : arg_map#1.entrySet()) { use(var_e#1); }\n"
+                + "  for (int var_i#1 = 0; var_i#1 < 3; var_i#1++) use(var_i#1);\n"
+                + "  for (String var_s#1 : names) use(var_s#1);\n"
+                + "}"),
+            rename(inClass("void m(Map<String, List<Integer>> map) {\n"
+                + "  for (Map.Entry<String, List<Integer>> e : map.entrySet()) { use(e); }\n"
+                + "  for (int i = 0; i < 3; i++) use(i);\n"
+                + "  for (String s : names) use(s);\n"
+                + "}")));
+    }
+
+    @Test
+    void genericTypesAreDeclarations() {
+        assertEquals(
+            inClass("void m() { Map<String, List<int[]>> var_m#1 = null; List<? extends Number> var_l#1; use(var_m#1, var_l#1); }"),
+            rename(inClass("void m() { Map<String, List<int[]>> m = null; List<? extends Number> l; use(m, l); }")));
+    }
+
+    // Looks like Foo<A, B> d from the right, but d is an argument
+    @Test
+    void comparisonsInArgumentsAreNotDeclarations() {
+        assertEquals(
+            inClass("void m(int arg_a#1, int arg_b#1, int arg_c#1, int arg_d#1) { foo(arg_a#1 < arg_b#1, arg_c#1 > arg_d#1); }"),
+            rename(inClass("void m(int a, int b, int c, int d) { foo(a < b, c > d); }")));
+        assertEquals(
+            inClass("void m() { foo(a < b, c > d); bar(x < y, z > w); }"),
+            rename(inClass("void m() { foo(a < b, c > d); bar(x < y, z > w); }")));
+    }
+
+    @Test
+    void labelsAreNotVariables() {
+        assertEquals(
+            inClass("void m(int[] arg_outer#1) {\n"
+                + "  outer:\n"
+                + "  for (int var_i#1 : arg_outer#1) { if (var_i#1 > 0) continue outer; else break outer; }\n"
+                + "}"),
+            rename(inClass("void m(int[] outer) {\n"
+                + "  outer:\n"
+                + "  for (int i : outer) { if (i > 0) continue outer; else break outer; }\n"
+                + "}")));
+    }
+
+    @Test
+    void ternaryBranchesAreNotDeclarations() {
+        assertEquals(
+            inClass("int m(boolean arg_f#1, int arg_a#1, int arg_b#1) { int var_r#1 = arg_f#1 ? arg_a#1 : arg_b#1; return arg_a#1 < arg_b#1 ? arg_b#1 : var_r#1; }"),
+            rename(inClass("int m(boolean f, int a, int b) { int r = f ? a : b; return a < b ? b : r; }")));
+    }
+
+    @Test
+    void catchAndResourceVariables() {
+        assertEquals(
+            inClass("void m() {\n"
+                + "  try (InputStream var_in#1 = open()) { use(var_in#1); } catch (IOException var_e#1) { use(var_e#1); }\n"
+                + "  try { run(); } catch (RuntimeException var_e#2) { use(var_e#2); }\n"
+                + "}"),
+            rename(inClass("void m() {\n"
+                + "  try (InputStream in = open()) { use(in); } catch (IOException e) { use(e); }\n"
+                + "  try { run(); } catch (RuntimeException e) { use(e); }\n"
+                + "}")));
+    }
+
+    @Test
+    void stringsAndCommentsAreCopied() {
+        assertEquals(
+            inClass("void m(String arg_s#1) { // s stays here\n  use(\"s\", 's', arg_s#1); /* s */ }"),
+            rename(inClass("void m(String s) { // s stays here\n  use(\"s\", 's', s); /* s */ }")));
+    }
+}